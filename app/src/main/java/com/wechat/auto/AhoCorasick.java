@@ -0,0 +1,166 @@
+package com.wechat.auto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基于字符的 Aho-Corasick 多模式匹配自动机
+ * 一次扫描消息即可找出所有命中的关键词，中文按单个 char 处理
+ */
+public class AhoCorasick {
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    // 扁平化的转移表：状态 s 的边为 labels/targets[edgeStart[s], edgeStart[s + 1])，labels 有序
+    private final int[] edgeStart;
+    private final char[] labels;
+    private final int[] targets;
+    private final int[] fail;
+    // 以该状态结尾的规则下标（不含失败链）
+    private final int[] terminal;
+    // 该状态（含失败链）能命中的最小规则下标
+    private final int[] output;
+    private final int minPatternIndex;
+
+    /**
+     * @param patterns 规则关键词，下标即规则优先级（越小越优先）
+     */
+    public AhoCorasick(List<String> patterns) {
+        // 1. 构建字典树（仅在规则变化时执行，这里允许分配）
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(NO_MATCH);
+        int minIndex = NO_MATCH;
+
+        for (int i = 0; i < patterns.size(); i++) {
+            String pattern = patterns.get(i);
+            if (pattern == null) continue;
+
+            int state = 0;
+            for (int j = 0; j < pattern.length(); j++) {
+                char c = pattern.charAt(j);
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(NO_MATCH);
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            if (i < outputs.get(state)) {
+                outputs.set(state, i);
+            }
+            minIndex = Math.min(minIndex, i);
+        }
+        minPatternIndex = minIndex;
+
+        // 2. 扁平化转移表
+        int stateCount = children.size();
+        edgeStart = new int[stateCount + 1];
+        int edgeCount = 0;
+        for (int s = 0; s < stateCount; s++) {
+            edgeStart[s] = edgeCount;
+            edgeCount += children.get(s).size();
+        }
+        edgeStart[stateCount] = edgeCount;
+
+        labels = new char[edgeCount];
+        targets = new int[edgeCount];
+        terminal = new int[stateCount];
+        output = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            int e = edgeStart[s];
+            for (Map.Entry<Character, Integer> entry : children.get(s).entrySet()) {
+                labels[e] = entry.getKey();
+                targets[e] = entry.getValue();
+                e++;
+            }
+            terminal[s] = outputs.get(s);
+            output[s] = terminal[s];
+        }
+
+        // 3. 广度优先计算失败链接，并沿失败链合并输出
+        fail = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) {
+            int child = targets[e];
+            fail[child] = 0;
+            output[child] = Math.min(output[child], output[0]);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = targets[e];
+                char c = labels[e];
+
+                int f = fail[state];
+                int next = transition(f, c);
+                while (next < 0 && f != 0) {
+                    f = fail[f];
+                    next = transition(f, c);
+                }
+                fail[child] = next >= 0 ? next : 0;
+                output[child] = Math.min(output[child], output[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 返回消息中命中的最小规则下标，未命中返回 -1
+     * 扫描过程不分配对象
+     */
+    public int firstMatch(String text) {
+        int best = output[0];
+        if (best == minPatternIndex) {
+            return best == NO_MATCH ? -1 : best;
+        }
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next >= 0 ? next : 0;
+
+            if (output[state] < best) {
+                best = output[state];
+                // 已命中最高优先级的规则，无需继续扫描
+                if (best == minPatternIndex) break;
+            }
+        }
+
+        return best == NO_MATCH ? -1 : best;
+    }
+
+    /**
+     * 只沿字典树从文本开头（从 start 起）向下走，返回作为前缀命中的最小规则下标，未命中返回 -1
+     */
+    public int firstPrefixMatch(String text, int start) {
+        int best = terminal[0];
+        int state = 0;
+        for (int i = start; i < text.length(); i++) {
+            state = transition(state, text.charAt(i));
+            if (state < 0) break;
+            if (terminal[state] < best) {
+                best = terminal[state];
+            }
+        }
+        return best == NO_MATCH ? -1 : best;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(labels, edgeStart[state], edgeStart[state + 1], c);
+        return index >= 0 ? targets[index] : -1;
+    }
+}
@@ -0,0 +1,121 @@
+package com.wechat.auto;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Rect;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 接听按钮定位缓存
+ * 按「微信窗口类名 + 屏幕尺寸 + 方向」记住上次成功的查找方式和按钮位置，
+ * 下次来电先按缓存尝试，连续失败多次后失效
+ */
+public class AnswerLocatorCache {
+
+    private static final String PREF_NAME = "answer_locator_cache";
+    private static final String KEY_ENTRIES = "entries";
+    private static final int MAX_MISSES = 3;
+
+    // 成功的查找方式
+    public static final String STRATEGY_TEXT = "text";
+    public static final String STRATEGY_VIEW_ID = "view_id";
+    public static final String STRATEGY_GEOMETRY = "geometry";
+    public static final String STRATEGY_KEYWORD = "keyword";
+    public static final String STRATEGY_BLIND_TAP = "blind_tap";
+    public static final String STRATEGY_SCREENSHOT = "screenshot";
+
+    private final SharedPreferences prefs;
+    private final Gson gson = new Gson();
+    private final Map<String, Entry> entries;
+
+    public AnswerLocatorCache(Context context) {
+        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        entries = load();
+    }
+
+    /**
+     * 生成缓存键
+     */
+    public static String buildKey(String windowClassName, int screenWidth, int screenHeight) {
+        String orientation = screenWidth > screenHeight ? "land" : "port";
+        return windowClassName + "|" + screenWidth + "x" + screenHeight + "|" + orientation;
+    }
+
+    public synchronized Entry lookup(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * 记录成功，清零失败次数
+     */
+    public synchronized void recordHit(String key, String strategy, String viewId, Rect bounds) {
+        Entry entry = new Entry();
+        entry.strategy = strategy;
+        entry.viewId = viewId;
+        entry.left = bounds.left;
+        entry.top = bounds.top;
+        entry.right = bounds.right;
+        entry.bottom = bounds.bottom;
+        entry.misses = 0;
+        entries.put(key, entry);
+        save();
+    }
+
+    /**
+     * 记录一次按缓存尝试失败，连续失败达到上限后删除
+     */
+    public synchronized void recordMiss(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return;
+
+        entry.misses++;
+        if (entry.misses >= MAX_MISSES) {
+            entries.remove(key);
+            LogManager.log("定位缓存失效: " + key);
+        }
+        save();
+    }
+
+    private Map<String, Entry> load() {
+        String json = prefs.getString(KEY_ENTRIES, "{}");
+        Type type = new TypeToken<Map<String, Entry>>(){}.getType();
+        try {
+            Map<String, Entry> map = gson.fromJson(json, type);
+            if (map != null) {
+                return new HashMap<>(map);
+            }
+        } catch (Exception e) {
+            LogManager.log("✗ 定位缓存读取失败: " + e.getMessage());
+        }
+        return new HashMap<>();
+    }
+
+    private void save() {
+        prefs.edit().putString(KEY_ENTRIES, gson.toJson(entries)).apply();
+    }
+
+    /**
+     * 缓存条目
+     */
+    public static class Entry {
+        public String strategy;
+        public String viewId;
+        public int left;
+        public int top;
+        public int right;
+        public int bottom;
+        public int misses;
+
+        public int centerX() {
+            return (left + right) / 2;
+        }
+
+        public int centerY() {
+            return (top + bottom) / 2;
+        }
+    }
+}
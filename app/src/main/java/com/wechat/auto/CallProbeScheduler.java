@@ -0,0 +1,139 @@
+package com.wechat.auto;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * 自适应来电探测调度器
+ * 平时完全空闲；出现来电信号（来电通知、通话窗口、接听文本）时启动短间隔探测，
+ * 之后间隔按指数退避，探测次数用完或找到接听按钮后回到空闲
+ */
+public class CallProbeScheduler {
+
+    private static final long INITIAL_INTERVAL_MS = 300;
+    private static final long MAX_INTERVAL_MS = 4000;
+    private static final int MAX_PROBES = 8;
+
+    public interface Probe {
+        /**
+         * 执行一次探测，找到并处理了接听按钮时返回 true
+         */
+        boolean probe();
+    }
+
+    private final Handler handler;
+    private final Probe probe;
+
+    // 以下状态只在 handler 所在线程读写
+    private boolean armed = false;
+    private boolean resolved = false;
+    // 这次来电信号最早出现的时间（uptimeMillis）
+    private long armedAt = 0;
+    private long nextIntervalMs;
+    private int probesRemaining;
+
+    private volatile long armCount = 0;
+    private volatile long probeCount = 0;
+    private volatile long hitCount = 0;
+
+    private final Runnable probeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!armed) return;
+
+            probeCount++;
+            probesRemaining--;
+            if (probe.probe()) {
+                hitCount++;
+                markResolved();
+                return;
+            }
+
+            if (probesRemaining <= 0) {
+                disarm();
+                return;
+            }
+
+            handler.postDelayed(this, nextIntervalMs);
+            nextIntervalMs = Math.min(nextIntervalMs * 2, MAX_INTERVAL_MS);
+        }
+    };
+
+    public CallProbeScheduler(Handler handler, Probe probe) {
+        this.handler = handler;
+        this.probe = probe;
+    }
+
+    /**
+     * 收到来电信号：从最短间隔重新开始探测
+     */
+    public void arm(String reason) {
+        if (!armed) {
+            LogManager.log("→ 来电探测启动: " + reason);
+            armedAt = SystemClock.uptimeMillis();
+        }
+        armCount++;
+        armed = true;
+        resolved = false;
+        probesRemaining = MAX_PROBES;
+        nextIntervalMs = INITIAL_INTERVAL_MS * 2;
+        handler.removeCallbacks(probeRunnable);
+        handler.postDelayed(probeRunnable, INITIAL_INTERVAL_MS);
+    }
+
+    /**
+     * 只在空闲时启动，避免连续的弱信号一直重置退避
+     */
+    public void armIfIdle(String reason) {
+        if (!armed) {
+            arm(reason);
+        }
+    }
+
+    public void disarm() {
+        armed = false;
+        handler.removeCallbacks(probeRunnable);
+    }
+
+    /**
+     * 接听已确认：停止探测，之后的延迟接听也不再执行
+     */
+    public void markResolved() {
+        resolved = true;
+        disarm();
+    }
+
+    public boolean isArmed() {
+        return armed;
+    }
+
+    /**
+     * 最近一次从空闲启动的时间（uptimeMillis），探测触发的接听从这里计算耗时
+     */
+    public long getArmedAt() {
+        return armedAt;
+    }
+
+    /**
+     * 最近一次启动后是否已经找到接听按钮
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    public long getArmCount() {
+        return armCount;
+    }
+
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public String describeCounters() {
+        return "启动 " + armCount + ", 探测 " + probeCount + ", 命中 " + hitCount;
+    }
+}
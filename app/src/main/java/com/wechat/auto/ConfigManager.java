@@ -5,7 +5,6 @@ import android.content.SharedPreferences;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.List;
 
 public class ConfigManager {
@@ -14,20 +13,55 @@ public class ConfigManager {
     private static final String KEY_AUTO_REPLY = "auto_reply_enabled";
     private static final String KEY_AUTO_ANSWER = "auto_answer_enabled";
     private static final String KEY_COOLDOWN = "cooldown_seconds";
+    // 旧版本把全部规则存成一个 JSON 字符串，启动时迁移到 KeywordStore 后删除
     private static final String KEY_KEYWORDS = "keywords";
+    // 规则每次修改后递增，用来通知其他 ConfigManager 实例重建匹配器
+    private static final String KEY_KEYWORDS_VERSION = "keywords_version";
     private static final String KEY_MATCH_MODE = "match_mode";
+    private static final String KEY_COALESCE_WINDOW = "coalesce_window_ms";
+    
+    public interface OnConfigChangedListener {
+        void onConfigChanged(ConfigSnapshot snapshot);
+    }
     
     private SharedPreferences prefs;
     private Gson gson;
+    private KeywordStore keywordStore;
+    // 当前配置，读取方只需读一次引用
+    private volatile ConfigSnapshot snapshot;
+    private volatile OnConfigChangedListener changeListener;
+    
+    // SharedPreferences 只弱引用监听器，必须持有强引用
+    // 本实例和其他 ConfigManager 实例（如界面）写入的配置都只在这里重新加载一次，setter 只负责写入；
+    // 在主线程 apply 时监听器同步回调，setter 返回前快照已更新
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = (sharedPreferences, key) -> reload(key);
     
     public ConfigManager(Context context) {
         prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
         gson = new Gson();
+        keywordStore = KeywordStore.getInstance(context);
+        migrateKeywords();
+        reload(null);
+        prefs.registerOnSharedPreferenceChangeListener(prefsListener);
+    }
+    
+    /**
+     * 当前配置快照
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * 配置变化后回调，在主线程或写入配置的线程调用
+     */
+    public void setOnConfigChangedListener(OnConfigChangedListener listener) {
+        changeListener = listener;
     }
     
     // 自动回复开关
     public boolean isAutoReplyEnabled() {
-        return prefs.getBoolean(KEY_AUTO_REPLY, true);
+        return snapshot.autoReplyEnabled;
     }
     
     public void setAutoReplyEnabled(boolean enabled) {
@@ -36,7 +70,7 @@ public class ConfigManager {
     
     // 自动接听开关
     public boolean isAutoAnswerEnabled() {
-        return prefs.getBoolean(KEY_AUTO_ANSWER, true);
+        return snapshot.autoAnswerEnabled;
     }
     
     public void setAutoAnswerEnabled(boolean enabled) {
@@ -45,7 +79,7 @@ public class ConfigManager {
     
     // 冷却时间
     public int getCooldownSeconds() {
-        return prefs.getInt(KEY_COOLDOWN, 5);
+        return snapshot.cooldownSeconds;
     }
     
     public void setCooldownSeconds(int seconds) {
@@ -54,84 +88,128 @@ public class ConfigManager {
     
     // 匹配模式
     public String getMatchMode() {
-        return prefs.getString(KEY_MATCH_MODE, "fuzzy");
+        return snapshot.matchMode;
     }
     
     public void setMatchMode(String mode) {
         prefs.edit().putString(KEY_MATCH_MODE, mode).apply();
     }
     
+    // 内容变化事件合并窗口（毫秒）
+    public int getCoalesceWindowMs() {
+        return snapshot.coalesceWindowMs;
+    }
+    
+    public void setCoalesceWindowMs(int windowMs) {
+        prefs.edit().putInt(KEY_COALESCE_WINDOW, windowMs).apply();
+    }
+    
     // 关键词管理
     public List<KeywordItem> getKeywords() {
-        String json = prefs.getString(KEY_KEYWORDS, "[]");
-        Type type = new TypeToken<List<KeywordItem>>(){}.getType();
-        List<KeywordItem> keywords = gson.fromJson(json, type);
-        return keywords != null ? keywords : new ArrayList<>();
+        return keywordStore.getAll();
     }
     
-    public void addKeyword(String keyword, String reply) {
-        List<KeywordItem> keywords = getKeywords();
-        keywords.add(new KeywordItem(keyword, reply));
-        saveKeywords(keywords);
+    public void addKeyword(String keyword, String reply, String type) {
+        keywordStore.add(new KeywordItem(keyword, reply, type));
+        onKeywordsChanged();
     }
     
     public void removeKeyword(int position) {
-        List<KeywordItem> keywords = getKeywords();
-        if (position >= 0 && position < keywords.size()) {
-            keywords.remove(position);
-            saveKeywords(keywords);
+        if (keywordStore.remove(position)) {
+            onKeywordsChanged();
         }
     }
     
-    public void updateKeyword(int position, String keyword, String reply) {
-        List<KeywordItem> keywords = getKeywords();
-        if (position >= 0 && position < keywords.size()) {
-            keywords.set(position, new KeywordItem(keyword, reply));
-            saveKeywords(keywords);
+    public void updateKeyword(int position, String keyword, String reply, String type) {
+        if (keywordStore.update(position, new KeywordItem(keyword, reply, type))) {
+            onKeywordsChanged();
         }
     }
     
-    private void saveKeywords(List<KeywordItem> keywords) {
-        String json = gson.toJson(keywords);
-        prefs.edit().putString(KEY_KEYWORDS, json).apply();
+    /**
+     * 规则写入后递增版本号；本实例和其他实例都由 prefsListener 收到变化后重建一次匹配器
+     */
+    private void onKeywordsChanged() {
+        prefs.edit().putLong(KEY_KEYWORDS_VERSION, prefs.getLong(KEY_KEYWORDS_VERSION, 0) + 1).apply();
     }
     
     /**
-     * 检查消息是否匹配关键词
+     * 把旧版本存在 SharedPreferences 中的 JSON 规则导入 KeywordStore
+     * 导入后才删除旧数据；数据库中已有规则（上次导入后未来得及删除）时不重复导入
      */
-    public String checkKeyword(String message) {
-        if (message == null || message.isEmpty()) return null;
-        
-        List<KeywordItem> keywords = getKeywords();
-        String matchMode = getMatchMode();
+    private void migrateKeywords() {
+        String json = prefs.getString(KEY_KEYWORDS, null);
+        if (json == null) return;
         
-        for (KeywordItem item : keywords) {
-            if ("exact".equals(matchMode)) {
-                // 精确匹配
-                if (message.trim().equals(item.keyword)) {
-                    return item.reply;
-                }
-            } else {
-                // 模糊匹配
-                if (message.contains(item.keyword)) {
-                    return item.reply;
-                }
+        try {
+            Type type = new TypeToken<List<KeywordItem>>(){}.getType();
+            List<KeywordItem> keywords = gson.fromJson(json, type);
+            if (keywords != null && !keywords.isEmpty() && keywordStore.isEmpty()) {
+                keywordStore.addAll(keywords);
+                LogManager.log("已迁移 " + keywords.size() + " 条关键词规则");
             }
+        } catch (Exception e) {
+            // 旧数据损坏时保留原值，不影响启动
+            LogManager.log("✗ 迁移关键词规则失败: " + e.getMessage());
+            return;
         }
+        prefs.edit().remove(KEY_KEYWORDS).apply();
+    }
+    
+    /**
+     * 重新读取配置并替换快照；匹配器只在规则或匹配模式变化时重建
+     * @param key 变化的配置项，为 null 时全部重新读取
+     */
+    private synchronized void reload(String key) {
+        ConfigSnapshot current = snapshot;
+        boolean matcherChanged = key == null || current == null
+            || KEY_KEYWORDS_VERSION.equals(key) || KEY_MATCH_MODE.equals(key);
+        publish(matcherChanged
+            ? new KeywordMatcher(getKeywords(), prefs.getString(KEY_MATCH_MODE, "fuzzy"))
+            : current.keywordMatcher);
+    }
+    
+    private synchronized void publish(KeywordMatcher matcher) {
+        ConfigSnapshot updated = new ConfigSnapshot(
+            prefs.getBoolean(KEY_AUTO_REPLY, true),
+            prefs.getBoolean(KEY_AUTO_ANSWER, true),
+            prefs.getInt(KEY_COOLDOWN, 5),
+            prefs.getString(KEY_MATCH_MODE, "fuzzy"),
+            prefs.getInt(KEY_COALESCE_WINDOW, (int) EventPipeline.DEFAULT_COALESCE_WINDOW_MS),
+            matcher);
+        snapshot = updated;
         
-        return null;
+        OnConfigChangedListener listener = changeListener;
+        if (listener != null) {
+            listener.onConfigChanged(updated);
+        }
+    }
+    
+    /**
+     * 检查消息是否匹配关键词
+     */
+    public String checkKeyword(String message) {
+        return snapshot.checkKeyword(message);
     }
     
     /**
      * 关键词数据类
      */
     public static class KeywordItem {
+        // 规则类型，为空时跟随全局匹配模式
+        public static final String TYPE_SUBSTRING = "substring";
+        public static final String TYPE_EXACT = "exact";
+        public static final String TYPE_REGEX = "regex";
+        public static final String TYPE_PREFIX = "prefix";
+        
         public String keyword;
         public String reply;
+        public String type;
         
-        public KeywordItem(String keyword, String reply) {
+        public KeywordItem(String keyword, String reply, String type) {
             this.keyword = keyword;
             this.reply = reply;
+            this.type = type;
         }
     }
 }
@@ -0,0 +1,34 @@
+package com.wechat.auto;
+
+/**
+ * 某一时刻的全部配置，创建后不可变
+ * 由 ConfigManager 在配置变化时重建并整体替换，事件处理时读取一次引用即可使用所有配置，
+ * 同一事件内看到的各项配置保持一致
+ */
+public final class ConfigSnapshot {
+
+    public final boolean autoReplyEnabled;
+    public final boolean autoAnswerEnabled;
+    public final int cooldownSeconds;
+    public final String matchMode;
+    public final int coalesceWindowMs;
+    /** 按当前规则和匹配模式构建的匹配器 */
+    public final KeywordMatcher keywordMatcher;
+
+    ConfigSnapshot(boolean autoReplyEnabled, boolean autoAnswerEnabled, int cooldownSeconds,
+                   String matchMode, int coalesceWindowMs, KeywordMatcher keywordMatcher) {
+        this.autoReplyEnabled = autoReplyEnabled;
+        this.autoAnswerEnabled = autoAnswerEnabled;
+        this.cooldownSeconds = cooldownSeconds;
+        this.matchMode = matchMode;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.keywordMatcher = keywordMatcher;
+    }
+
+    /**
+     * 检查消息是否匹配关键词
+     */
+    public String checkKeyword(String message) {
+        return keywordMatcher.match(message);
+    }
+}
@@ -0,0 +1,142 @@
+package com.wechat.auto;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.accessibility.AccessibilityEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无障碍事件处理流水线
+ * 主线程只复制事件并入队，查找节点、点击、等待等耗时操作都在专用的 HandlerThread 上执行；
+ * 内容变化事件按时间窗口合并：窗口内的一串事件只处理一次；窗口状态变化事件走快速通道立即处理；
+ * 队列有上限，超限时丢弃
+ */
+public class EventPipeline {
+
+    private static final String TAG = "EventPipeline";
+    private static final int MAX_PENDING = 32;
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 100;
+    /** 合并窗口上限，配置值异常时也不会让内容变化事件一直等待 */
+    public static final long MAX_COALESCE_WINDOW_MS = 1000;
+
+    public interface EventHandler {
+        void handleEvent(AccessibilityEvent event);
+    }
+
+    private final HandlerThread thread;
+    private final Handler handler;
+    private final EventHandler eventHandler;
+
+    private volatile long coalesceWindowMs = DEFAULT_COALESCE_WINDOW_MS;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean contentChangePending = new AtomicBoolean();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public EventPipeline(String name, EventHandler eventHandler) {
+        this.eventHandler = eventHandler;
+        thread = new HandlerThread(name, Process.THREAD_PRIORITY_FOREGROUND);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * 工作线程的 Handler，延迟任务也应投递到这里
+     */
+    public Handler getHandler() {
+        return handler;
+    }
+
+    /**
+     * 内容变化事件的合并窗口，限制在 0 到 MAX_COALESCE_WINDOW_MS 之间
+     */
+    public void setCoalesceWindowMs(long windowMs) {
+        coalesceWindowMs = Math.min(Math.max(0, windowMs), MAX_COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * 在主线程调用：复制事件并投递到工作线程
+     */
+    public void submit(AccessibilityEvent event) {
+        receivedCount.incrementAndGet();
+        final int eventType = event.getEventType();
+        final boolean isContentChange = eventType == AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED;
+
+        // 窗口内已有内容变化事件在等待，处理时会读取最新界面，新的直接合并
+        if (isContentChange && !contentChangePending.compareAndSet(false, true)) {
+            coalescedCount.incrementAndGet();
+            return;
+        }
+
+        if (pending.incrementAndGet() > MAX_PENDING) {
+            pending.decrementAndGet();
+            if (isContentChange) {
+                contentChangePending.set(false);
+            }
+            droppedCount.incrementAndGet();
+            return;
+        }
+
+        // 回调返回后系统会回收原事件，必须复制一份
+        final AccessibilityEvent copy = AccessibilityEvent.obtain(event);
+        final long submitTime = MetricsRegistry.now();
+        Runnable task = () -> {
+            MetricsRegistry.recordSince(MetricsRegistry.Metric.EVENT_QUEUE, submitTime);
+            pending.decrementAndGet();
+            if (isContentChange) {
+                contentChangePending.set(false);
+            }
+            processedCount.incrementAndGet();
+            try {
+                eventHandler.handleEvent(copy);
+            } catch (Exception e) {
+                Log.e(TAG, "处理事件异常: " + e.getMessage(), e);
+            } finally {
+                copy.recycle();
+            }
+        };
+
+        if (isContentChange) {
+            // 等窗口结束再处理，期间到达的内容变化事件都合并到这一次
+            handler.postDelayed(task, coalesceWindowMs);
+        } else if (eventType == AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED) {
+            // 快速通道：插到队首立即处理
+            handler.postAtFrontOfQueue(task);
+        } else {
+            handler.post(task);
+        }
+    }
+
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public String describeCounters() {
+        return "收到 " + receivedCount.get() + ", 处理 " + processedCount.get()
+            + ", 合并 " + coalescedCount.get() + ", 丢弃 " + droppedCount.get();
+    }
+
+    public void quit() {
+        handler.removeCallbacksAndMessages(null);
+        thread.quitSafely();
+    }
+}
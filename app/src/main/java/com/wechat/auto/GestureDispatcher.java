@@ -0,0 +1,209 @@
+package com.wechat.auto;
+
+import android.accessibilityservice.AccessibilityService;
+import android.accessibilityservice.GestureDescription;
+import android.graphics.Path;
+import android.os.Handler;
+import android.os.SystemClock;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 非阻塞手势分发
+ * 每次点击返回 CompletableFuture，由 GestureResultCallback 或超时完成，调用线程不需要等待；
+ * 回调、超时和重试都在 handler 所在线程执行。
+ * 取消 future 只会停止等待和后续重试，已分发的手势无法撤回
+ */
+@SuppressWarnings("NewApi")
+public class GestureDispatcher {
+
+    /** 超过手势时长这么久仍无回调视为超时 */
+    public static final long TIMEOUT_MARGIN_MS = 1000;
+    /** 手势被取消或超时后，下一次重试前的间隔 */
+    public static final long RETRY_DELAY_MS = 200;
+
+    /** 默认重试参数：标准点击、长按、快速点击、左上/右下偏移 */
+    public static final Variant[] DEFAULT_VARIANTS = {
+        new Variant(0, 0, 200),
+        new Variant(0, 0, 400),
+        new Variant(0, 0, 100),
+        new Variant(-2, -2, 300),
+        new Variant(2, 2, 300)
+    };
+
+    public enum Status {
+        COMPLETED, CANCELLED, REJECTED, TIMED_OUT
+    }
+
+    /**
+     * 一次点击的结果
+     */
+    public static class GestureOutcome {
+        public final Status status;
+        /** 第几次尝试，从 1 开始 */
+        public final int attempt;
+        /** 从分发到得到结果的耗时 */
+        public final long latencyMs;
+        public final int x;
+        public final int y;
+
+        GestureOutcome(Status status, int attempt, long latencyMs, int x, int y) {
+            this.status = status;
+            this.attempt = attempt;
+            this.latencyMs = latencyMs;
+            this.x = x;
+            this.y = y;
+        }
+
+        public boolean isCompleted() {
+            return status == Status.COMPLETED;
+        }
+
+        @Override
+        public String toString() {
+            return status + " (第" + attempt + "次, " + latencyMs + "ms, (" + x + "," + y + "))";
+        }
+    }
+
+    /**
+     * 重试参数：相对目标点的偏移和按下时长
+     */
+    public static class Variant {
+        public final int offsetX;
+        public final int offsetY;
+        public final long durationMs;
+
+        public Variant(int offsetX, int offsetY, long durationMs) {
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.durationMs = durationMs;
+        }
+    }
+
+    private final AccessibilityService service;
+    private final Handler handler;
+
+    private volatile long dispatchedCount = 0;
+    private volatile long completedCount = 0;
+    private volatile long failedCount = 0;
+
+    public GestureDispatcher(AccessibilityService service, Handler handler) {
+        this.service = service;
+        this.handler = handler;
+    }
+
+    /**
+     * 点击一次；分发被拒绝时返回的 future 已经完成
+     */
+    public CompletableFuture<GestureOutcome> tap(int x, int y, long durationMs) {
+        return dispatch(x, y, durationMs, 1);
+    }
+
+    /**
+     * 依次尝试各组参数，直到某次点击完成或参数用完；
+     * 分发被拒绝时立即尝试下一组，被取消或超时时间隔 RETRY_DELAY_MS 后再试。
+     * 所有参数都被立即拒绝时返回的 future 已经完成
+     */
+    public CompletableFuture<GestureOutcome> tapWithRetries(int x, int y, Variant[] variants) {
+        CompletableFuture<GestureOutcome> result = new CompletableFuture<>();
+        attempt(result, x, y, variants, 0);
+        return result;
+    }
+
+    private void attempt(CompletableFuture<GestureOutcome> result, int x, int y, Variant[] variants, int index) {
+        // 调用方已取消
+        if (result.isDone()) return;
+
+        Variant variant = variants[index];
+        CompletableFuture<GestureOutcome> current =
+            dispatch(x + variant.offsetX, y + variant.offsetY, variant.durationMs, index + 1);
+        result.whenComplete((outcome, error) -> {
+            if (result.isCancelled()) {
+                current.cancel(false);
+            }
+        });
+
+        current.thenAccept(outcome -> {
+            if (outcome.isCompleted() || index + 1 >= variants.length) {
+                result.complete(outcome);
+                return;
+            }
+
+            LogManager.log("手势 " + outcome + "，尝试下一组参数");
+            if (outcome.status == Status.REJECTED) {
+                attempt(result, x, y, variants, index + 1);
+            } else {
+                handler.postDelayed(() -> attempt(result, x, y, variants, index + 1), RETRY_DELAY_MS);
+            }
+        });
+    }
+
+    private CompletableFuture<GestureOutcome> dispatch(int x, int y, long durationMs, int attempt) {
+        CompletableFuture<GestureOutcome> future = new CompletableFuture<>();
+        long startTime = SystemClock.uptimeMillis();
+        dispatchedCount++;
+
+        Path path = new Path();
+        path.moveTo(x, y);
+        GestureDescription gesture = new GestureDescription.Builder()
+            .addStroke(new GestureDescription.StrokeDescription(path, 0, durationMs))
+            .build();
+
+        Runnable timeout = () -> finish(future, Status.TIMED_OUT, attempt, startTime, x, y);
+
+        boolean accepted;
+        long dispatchStart = MetricsRegistry.now();
+        try {
+            accepted = service.dispatchGesture(gesture, new AccessibilityService.GestureResultCallback() {
+                @Override
+                public void onCompleted(GestureDescription gestureDescription) {
+                    finish(future, Status.COMPLETED, attempt, startTime, x, y);
+                }
+
+                @Override
+                public void onCancelled(GestureDescription gestureDescription) {
+                    finish(future, Status.CANCELLED, attempt, startTime, x, y);
+                }
+            }, handler);
+        } catch (Exception e) {
+            LogManager.log("✗ 手势分发异常: " + e.getMessage());
+            accepted = false;
+        }
+        MetricsRegistry.recordSince(MetricsRegistry.Metric.GESTURE_DISPATCH, dispatchStart);
+
+        if (!accepted) {
+            finish(future, Status.REJECTED, attempt, startTime, x, y);
+            return future;
+        }
+
+        handler.postDelayed(timeout, durationMs + TIMEOUT_MARGIN_MS);
+        // 无论正常完成还是被取消，都移除超时任务
+        future.whenComplete((outcome, error) -> handler.removeCallbacks(timeout));
+        return future;
+    }
+
+    private void finish(CompletableFuture<GestureOutcome> future, Status status, int attempt,
+                        long startTime, int x, int y) {
+        GestureOutcome outcome = new GestureOutcome(status, attempt,
+            SystemClock.uptimeMillis() - startTime, x, y);
+        if (future.complete(outcome)) {
+            if (outcome.isCompleted()) {
+                completedCount++;
+                MetricsRegistry.recordMillis(MetricsRegistry.Metric.GESTURE_COMPLETE, outcome.latencyMs);
+            } else {
+                failedCount++;
+            }
+        }
+    }
+
+    /**
+     * 分发是否已被系统同步拒绝（tapWithRetries 时为所有参数都被拒绝）
+     */
+    public static boolean wasRejected(CompletableFuture<GestureOutcome> future) {
+        return future.isDone() && !future.isCompletedExceptionally()
+            && future.join().status == Status.REJECTED;
+    }
+
+    public String describeCounters() {
+        return "分发 " + dispatchedCount + ", 完成 " + completedCount + ", 失败 " + failedCount;
+    }
+}
@@ -17,7 +17,7 @@ public class KeywordAdapter extends RecyclerView.Adapter<KeywordAdapter.ViewHold
     
     public interface OnKeywordActionListener {
         void onDelete(int position);
-        void onEdit(int position, String keyword, String reply);
+        void onEdit(int position, String keyword, String reply, String type);
     }
     
     public KeywordAdapter(List<ConfigManager.KeywordItem> keywords, OnKeywordActionListener listener) {
@@ -41,12 +41,12 @@ public class KeywordAdapter extends RecyclerView.Adapter<KeywordAdapter.ViewHold
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         ConfigManager.KeywordItem item = keywords.get(position);
-        holder.tvKeyword.setText(item.keyword);
+        holder.tvKeyword.setText(formatKeyword(holder.itemView, item));
         holder.tvReply.setText(item.reply);
         
         holder.btnEdit.setOnClickListener(v -> {
             if (listener != null) {
-                listener.onEdit(position, item.keyword, item.reply);
+                listener.onEdit(position, item.keyword, item.reply, item.type);
             }
         });
         
@@ -57,6 +57,22 @@ public class KeywordAdapter extends RecyclerView.Adapter<KeywordAdapter.ViewHold
         });
     }
     
+    /**
+     * 非默认类型的规则在关键词前标注类型
+     */
+    private String formatKeyword(View view, ConfigManager.KeywordItem item) {
+        if (item.type == null) return item.keyword;
+        
+        String[] labels = view.getResources().getStringArray(R.array.rule_type_labels);
+        String[] values = view.getResources().getStringArray(R.array.rule_type_values);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(item.type)) {
+                return "[" + labels[i] + "] " + item.keyword;
+            }
+        }
+        return item.keyword;
+    }
+    
     @Override
     public int getItemCount() {
         return keywords.size();
@@ -0,0 +1,141 @@
+package com.wechat.auto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 预编译的关键词匹配器
+ * 由规则列表构建一次，之后每条消息的匹配不再解析JSON；
+ * 包含/精确/前缀/正则四类规则分别建索引，仍按规则列表顺序取第一条命中
+ */
+public class KeywordMatcher {
+
+    private final String[] replies;
+    // 包含匹配：Aho-Corasick 自动机
+    private final AhoCorasick substringAutomaton;
+    // 前缀匹配：字典树
+    private final AhoCorasick prefixTrie;
+    // 精确匹配索引：去空白后的关键词 -> 规则下标，重复关键词保留第一条规则
+    private final Map<String, Integer> exactIndex;
+    // 正则匹配：加载规则时预编译
+    private final Pattern[] regexPatterns;
+    private final int[] regexRuleIndexes;
+    private final boolean hasSubstring;
+    private final boolean hasPrefix;
+
+    public KeywordMatcher(List<ConfigManager.KeywordItem> items, String matchMode) {
+        int size = items != null ? items.size() : 0;
+        replies = new String[size];
+        String defaultType = "exact".equals(matchMode)
+            ? ConfigManager.KeywordItem.TYPE_EXACT
+            : ConfigManager.KeywordItem.TYPE_SUBSTRING;
+
+        // 不属于该类型的规则位置填 null，自动机返回的下标即规则下标
+        String[] substringKeywords = new String[size];
+        String[] prefixKeywords = new String[size];
+        exactIndex = new HashMap<>();
+        List<Pattern> patterns = new ArrayList<>();
+        List<Integer> patternIndexes = new ArrayList<>();
+        boolean anySubstring = false;
+        boolean anyPrefix = false;
+
+        for (int i = 0; i < size; i++) {
+            ConfigManager.KeywordItem item = items.get(i);
+            String keyword = item.keyword != null ? item.keyword : "";
+            String type = item.type != null ? item.type : defaultType;
+            replies[i] = item.reply;
+
+            switch (type) {
+                case ConfigManager.KeywordItem.TYPE_EXACT:
+                    String key = keyword.trim();
+                    if (!exactIndex.containsKey(key)) {
+                        exactIndex.put(key, i);
+                    }
+                    break;
+
+                case ConfigManager.KeywordItem.TYPE_PREFIX:
+                    prefixKeywords[i] = keyword.trim();
+                    anyPrefix = true;
+                    break;
+
+                case ConfigManager.KeywordItem.TYPE_REGEX:
+                    try {
+                        patterns.add(Pattern.compile(keyword));
+                        patternIndexes.add(i);
+                    } catch (PatternSyntaxException e) {
+                        LogManager.log("✗ 正则规则无效，已忽略: " + keyword);
+                    }
+                    break;
+
+                default:
+                    substringKeywords[i] = keyword;
+                    anySubstring = true;
+                    break;
+            }
+        }
+
+        hasSubstring = anySubstring;
+        hasPrefix = anyPrefix;
+        substringAutomaton = new AhoCorasick(Arrays.asList(substringKeywords));
+        prefixTrie = new AhoCorasick(Arrays.asList(prefixKeywords));
+        regexPatterns = patterns.toArray(new Pattern[0]);
+        regexRuleIndexes = new int[patternIndexes.size()];
+        for (int i = 0; i < regexRuleIndexes.length; i++) {
+            regexRuleIndexes[i] = patternIndexes.get(i);
+        }
+    }
+
+    /**
+     * 按规则顺序返回第一条命中规则的回复，未命中返回 null
+     */
+    public String match(String message) {
+        if (message == null || message.isEmpty()) return null;
+
+        int best = Integer.MAX_VALUE;
+
+        // 精确匹配：每条消息只去一次空白，哈希查找
+        if (!exactIndex.isEmpty()) {
+            Integer index = exactIndex.get(message.trim());
+            if (index != null) {
+                best = index;
+            }
+        }
+
+        // 前缀匹配：跳过开头空白后沿字典树走一遍
+        if (hasPrefix) {
+            int start = 0;
+            while (start < message.length() && message.charAt(start) <= ' ') start++;
+            int index = prefixTrie.firstPrefixMatch(message, start);
+            if (index >= 0 && index < best) {
+                best = index;
+            }
+        }
+
+        // 包含匹配：一次扫描找出所有命中的关键词
+        if (hasSubstring) {
+            int index = substringAutomaton.firstMatch(message);
+            if (index >= 0 && index < best) {
+                best = index;
+            }
+        }
+
+        // 正则匹配：只需检查排在当前最优命中之前的规则
+        for (int i = 0; i < regexPatterns.length && regexRuleIndexes[i] < best; i++) {
+            if (regexPatterns[i].matcher(message).find()) {
+                best = regexRuleIndexes[i];
+                break;
+            }
+        }
+
+        return best == Integer.MAX_VALUE ? null : replies[best];
+    }
+
+    public int size() {
+        return replies.length;
+    }
+}
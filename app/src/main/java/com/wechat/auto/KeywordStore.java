@@ -0,0 +1,187 @@
+package com.wechat.auto;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 关键词规则存储
+ * 每条规则一行，增删改只写对应的行；position 只用于排序，删除时不重排，新规则排在最后；
+ * 启用 WAL，界面写入时服务仍可读取。进程内共用一个实例
+ */
+public class KeywordStore extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "keywords.db";
+    private static final int DB_VERSION = 1;
+
+    private static final String TABLE = "rules";
+    private static final String COL_ID = "_id";
+    private static final String COL_POSITION = "position";
+    private static final String COL_KEYWORD = "keyword";
+    private static final String COL_REPLY = "reply";
+    private static final String COL_TYPE = "type";
+
+    private static KeywordStore instance;
+
+    public static synchronized KeywordStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new KeywordStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private KeywordStore(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+            + COL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + COL_POSITION + " INTEGER NOT NULL, "
+            + COL_KEYWORD + " TEXT NOT NULL, "
+            + COL_REPLY + " TEXT NOT NULL, "
+            + COL_TYPE + " TEXT)");
+        db.execSQL("CREATE INDEX idx_rules_position ON " + TABLE + " (" + COL_POSITION + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // 目前只有一个版本
+    }
+
+    /**
+     * 按顺序读取全部规则
+     */
+    public List<ConfigManager.KeywordItem> getAll() {
+        List<ConfigManager.KeywordItem> items = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE,
+            new String[]{COL_KEYWORD, COL_REPLY, COL_TYPE},
+            null, null, null, null, COL_POSITION);
+        try {
+            while (cursor.moveToNext()) {
+                items.add(new ConfigManager.KeywordItem(
+                    cursor.getString(0), cursor.getString(1), cursor.isNull(2) ? null : cursor.getString(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return queryLong(getReadableDatabase(), "SELECT COUNT(*) FROM " + TABLE) == 0;
+    }
+
+    /**
+     * 在最后追加一条规则
+     */
+    public void add(ConfigManager.KeywordItem item) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            insert(db, item, nextPosition(db));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 在一个事务内按顺序追加多条规则（用于迁移）
+     */
+    public void addAll(List<ConfigManager.KeywordItem> items) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long position = nextPosition(db);
+            for (ConfigManager.KeywordItem item : items) {
+                insert(db, item, position++);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 更新列表中第 index 条规则，返回是否存在该规则
+     */
+    public boolean update(int index, ConfigManager.KeywordItem item) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long id = idAt(db, index);
+            boolean updated = id >= 0
+                && db.update(TABLE, toValues(item), COL_ID + " = ?", new String[]{String.valueOf(id)}) > 0;
+            db.setTransactionSuccessful();
+            return updated;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * 删除列表中第 index 条规则，返回是否存在该规则
+     */
+    public boolean remove(int index) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            long id = idAt(db, index);
+            boolean removed = id >= 0
+                && db.delete(TABLE, COL_ID + " = ?", new String[]{String.valueOf(id)}) > 0;
+            db.setTransactionSuccessful();
+            return removed;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void insert(SQLiteDatabase db, ConfigManager.KeywordItem item, long position) {
+        ContentValues values = toValues(item);
+        values.put(COL_POSITION, position);
+        db.insert(TABLE, null, values);
+    }
+
+    private static ContentValues toValues(ConfigManager.KeywordItem item) {
+        ContentValues values = new ContentValues();
+        values.put(COL_KEYWORD, item.keyword != null ? item.keyword : "");
+        values.put(COL_REPLY, item.reply != null ? item.reply : "");
+        values.put(COL_TYPE, item.type);
+        return values;
+    }
+
+    private static long nextPosition(SQLiteDatabase db) {
+        return queryLong(db, "SELECT IFNULL(MAX(" + COL_POSITION + "), -1) + 1 FROM " + TABLE);
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 列表下标对应的行 id，走 position 索引；不存在时返回 -1
+     */
+    private static long idAt(SQLiteDatabase db, int index) {
+        if (index < 0) return -1;
+        Cursor cursor = db.rawQuery("SELECT " + COL_ID + " FROM " + TABLE
+            + " ORDER BY " + COL_POSITION + " LIMIT 1 OFFSET ?", new String[]{String.valueOf(index)});
+        try {
+            return cursor.moveToNext() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -3,26 +3,38 @@ package com.wechat.auto;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.View;
 import android.widget.Button;
-import android.widget.ScrollView;
+import android.widget.LinearLayout;
 import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.List;
 
 public class LogActivity extends AppCompatActivity {
     
-    private TextView tvLogs;
-    private ScrollView scrollView;
+    private RecyclerView rvLogs;
+    private TextView tvEmpty;
+    private Button btnFollow;
+    private LogAdapter adapter;
     private Handler handler = new Handler(Looper.getMainLooper());
     private Runnable updateRunnable;
     
+    // 下一次从这个序号开始读取新日志
+    private long nextSequence = 0;
+    // 是否自动滚动到最新日志；用户向上翻看时暂停
+    private boolean following = true;
+    
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         
         // 创建简单的布局
-        ScrollView scrollView = new ScrollView(this);
-        android.widget.LinearLayout layout = new android.widget.LinearLayout(this);
-        layout.setOrientation(android.widget.LinearLayout.VERTICAL);
+        LinearLayout layout = new LinearLayout(this);
+        layout.setOrientation(LinearLayout.VERTICAL);
         layout.setPadding(16, 16, 16, 16);
         
         // 标题
@@ -33,27 +45,67 @@ public class LogActivity extends AppCompatActivity {
         title.setPadding(0, 0, 0, 16);
         layout.addView(title);
         
+        LinearLayout buttons = new LinearLayout(this);
+        buttons.setOrientation(LinearLayout.HORIZONTAL);
+        
         // 清除按钮
         Button btnClear = new Button(this);
         btnClear.setText("清除日志");
         btnClear.setOnClickListener(v -> {
             LogManager.clear();
-            updateLogs();
+            nextSequence = LogManager.getNextSequence();
+            adapter.clear();
+            updateEmptyHint();
         });
-        layout.addView(btnClear);
+        buttons.addView(btnClear);
+        
+        // 自动滚动开关
+        btnFollow = new Button(this);
+        btnFollow.setOnClickListener(v -> setFollowing(!following));
+        buttons.addView(btnFollow);
+        
+        // 各阶段耗时统计
+        Button btnMetrics = new Button(this);
+        btnMetrics.setText("耗时统计");
+        btnMetrics.setOnClickListener(v -> showMetrics());
+        buttons.addView(btnMetrics);
+        layout.addView(buttons);
         
-        // 日志文本
-        tvLogs = new TextView(this);
-        tvLogs.setTextSize(12);
-        tvLogs.setTextColor(0xFF333333);
-        tvLogs.setPadding(8, 8, 8, 8);
-        tvLogs.setBackgroundColor(0xFFF5F5F5);
-        layout.addView(tvLogs);
+        // 空日志提示
+        tvEmpty = new TextView(this);
+        tvEmpty.setText("暂无日志\n\n提示：\n1. 确保无障碍服务已开启\n2. 让朋友给你打视频电话\n3. 观察这里的日志输出");
+        tvEmpty.setTextSize(12);
+        tvEmpty.setTextColor(0xFF333333);
+        tvEmpty.setPadding(8, 8, 8, 8);
+        layout.addView(tvEmpty);
+        
+        // 日志列表
+        adapter = new LogAdapter();
+        rvLogs = new RecyclerView(this);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        layoutManager.setStackFromEnd(true);
+        rvLogs.setLayoutManager(layoutManager);
+        rvLogs.setAdapter(adapter);
+        rvLogs.setBackgroundColor(0xFFF5F5F5);
+        rvLogs.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                // 用户拖动离开底部时暂停自动滚动，拖回底部时恢复
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    setFollowing(!recyclerView.canScrollVertically(1));
+                } else if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                    setFollowing(false);
+                }
+            }
+        });
+        layout.addView(rvLogs, new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.MATCH_PARENT, 0, 1));
         
-        scrollView.addView(layout);
-        setContentView(scrollView);
+        setContentView(layout);
+        setFollowing(true);
+        updateEmptyHint();
         
-        // 定时更新日志
+        // 定时拉取新日志
         updateRunnable = new Runnable() {
             @Override
             public void run() {
@@ -75,12 +127,39 @@ public class LogActivity extends AppCompatActivity {
         handler.removeCallbacks(updateRunnable);
     }
     
+    /**
+     * 只追加上次读取之后的新日志
+     */
     private void updateLogs() {
-        String logs = LogManager.getAllLogsAsString();
-        if (logs.isEmpty()) {
-            tvLogs.setText("暂无日志\n\n提示：\n1. 确保无障碍服务已开启\n2. 让朋友给你打视频电话\n3. 观察这里的日志输出");
-        } else {
-            tvLogs.setText(logs);
+        List<LogManager.Entry> entries = LogManager.readSince(nextSequence);
+        if (entries.isEmpty()) return;
+        
+        nextSequence = entries.get(entries.size() - 1).sequence + 1;
+        adapter.append(entries);
+        updateEmptyHint();
+        if (following) {
+            rvLogs.scrollToPosition(adapter.getItemCount() - 1);
+        }
+    }
+    
+    private void setFollowing(boolean follow) {
+        following = follow;
+        btnFollow.setText(follow ? "暂停滚动" : "滚动到最新");
+        if (follow && adapter.getItemCount() > 0) {
+            rvLogs.scrollToPosition(adapter.getItemCount() - 1);
         }
     }
+    
+    private void showMetrics() {
+        new AlertDialog.Builder(this)
+            .setTitle("耗时统计")
+            .setMessage(MetricsRegistry.dump())
+            .setPositiveButton("关闭", null)
+            .setNeutralButton("清零", (dialog, which) -> MetricsRegistry.reset())
+            .show();
+    }
+    
+    private void updateEmptyHint() {
+        tvEmpty.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
+    }
 }
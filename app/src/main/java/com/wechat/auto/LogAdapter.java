@@ -0,0 +1,72 @@
+package com.wechat.auto;
+
+import android.view.ViewGroup;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 日志列表，只追加新日志，超过上限时从头部成批移除
+ */
+public class LogAdapter extends RecyclerView.Adapter<LogAdapter.ViewHolder> {
+    
+    /** 列表最多保留的条数 */
+    public static final int MAX_ITEMS = LogManager.CAPACITY;
+    // 超出上限这么多条才移除一次，避免每追加一条都移动整个列表
+    private static final int TRIM_BATCH = 256;
+    
+    private final List<LogManager.Entry> entries = new ArrayList<>();
+    
+    public void append(List<LogManager.Entry> newEntries) {
+        if (newEntries.isEmpty()) return;
+        
+        int start = entries.size();
+        entries.addAll(newEntries);
+        notifyItemRangeInserted(start, newEntries.size());
+        
+        int overflow = entries.size() - MAX_ITEMS;
+        if (overflow >= TRIM_BATCH) {
+            entries.subList(0, overflow).clear();
+            notifyItemRangeRemoved(0, overflow);
+        }
+    }
+    
+    public void clear() {
+        int size = entries.size();
+        entries.clear();
+        notifyItemRangeRemoved(0, size);
+    }
+    
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        TextView textView = new TextView(parent.getContext());
+        textView.setLayoutParams(new RecyclerView.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        textView.setTextSize(12);
+        textView.setTextColor(0xFF333333);
+        textView.setPadding(8, 2, 8, 2);
+        return new ViewHolder(textView);
+    }
+    
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.tvLog.setText(entries.get(position).toString());
+    }
+    
+    @Override
+    public int getItemCount() {
+        return entries.size();
+    }
+    
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        TextView tvLog;
+        
+        ViewHolder(TextView itemView) {
+            super(itemView);
+            tvLog = itemView;
+        }
+    }
+}
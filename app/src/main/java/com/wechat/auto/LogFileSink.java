@@ -0,0 +1,200 @@
+package com.wechat.auto;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志落盘
+ * LogManager 写入时把日志放进有界队列，队列满时直接丢弃并计数，不阻塞调用线程；
+ * 后台线程成批取出，按行追加到 filesDir/logs/wechat_auto.log，超过大小后轮转，最多保留 MAX_FILES 个文件
+ */
+public class LogFileSink {
+    private static final String TAG = "LogFileSink";
+
+    public static final String DIR_NAME = "logs";
+    public static final String FILE_NAME = "wechat_auto.log";
+    /** 单个文件的大小上限 */
+    public static final long MAX_FILE_BYTES = 1024 * 1024;
+    /** 包括当前文件在内最多保留的文件数 */
+    public static final int MAX_FILES = 3;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH = 256;
+
+    private static volatile LogFileSink instance;
+
+    private final File dir;
+    private final BlockingQueue<LogManager.Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    // 以下只在写线程使用
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+    private final StringBuilder line = new StringBuilder(256);
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+    private long reportedDrops = 0;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile long writtenCount = 0;
+    private volatile long rotationCount = 0;
+
+    /**
+     * 启动日志落盘并接到 LogManager 上，重复调用只启动一次
+     */
+    public static synchronized LogFileSink install(Context context) {
+        if (instance == null) {
+            instance = new LogFileSink(new File(context.getFilesDir(), DIR_NAME));
+            LogManager.setSink(instance);
+        }
+        return instance;
+    }
+
+    public static LogFileSink getInstance() {
+        return instance;
+    }
+
+    private LogFileSink(File dir) {
+        this.dir = dir;
+        Thread writerThread = new Thread(this::writeLoop, "LogFileSink");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * 任意线程调用，队列满时丢弃
+     */
+    void offer(LogManager.Entry entry) {
+        if (!queue.offer(entry)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public File getCurrentFile() {
+        return new File(dir, FILE_NAME);
+    }
+
+    private void writeLoop() {
+        List<LogManager.Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            try {
+                write(batch);
+            } catch (Throwable e) {
+                // 写失败（包括运行时异常）时丢掉这一批，下次重新打开文件，写线程继续运行
+                Log.e(TAG, "写日志文件失败: " + e.getMessage());
+                closeChannel();
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<LogManager.Entry> batch) throws IOException {
+        buffer.clear();
+
+        long dropped = droppedCount.get();
+        if (dropped > reportedDrops) {
+            append(System.currentTimeMillis(), -1,
+                "日志队列已满，丢弃 " + (dropped - reportedDrops) + " 条");
+            reportedDrops = dropped;
+        }
+        for (LogManager.Entry entry : batch) {
+            append(entry.timeMillis, entry.sequence, entry.message);
+        }
+
+        buffer.flip();
+        FileChannel target = openChannel();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        writtenCount += batch.size();
+
+        if (target.size() >= MAX_FILE_BYTES) {
+            rotate();
+        }
+    }
+
+    /**
+     * 追加一行：时间 序号 内容；缓冲区不够时扩容
+     */
+    private void append(long timeMillis, long sequence, String message) {
+        line.setLength(0);
+        line.append(dateFormat.format(new Date(timeMillis))).append(' ');
+        if (sequence >= 0) {
+            line.append('#').append(sequence).append(' ');
+        }
+        line.append(message.replace('\n', ' ')).append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+
+        if (buffer.remaining() < bytes.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes.length));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.put(bytes);
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("无法创建目录 " + dir);
+            }
+            RandomAccessFile file = new RandomAccessFile(getCurrentFile(), "rw");
+            channel = file.getChannel();
+            channel.position(channel.size());
+        }
+        return channel;
+    }
+
+    /**
+     * 当前文件改名为 .1，原来的 .1 改为 .2，依次类推，超过 MAX_FILES 的删除
+     */
+    private void rotate() {
+        closeChannel();
+        File oldest = new File(dir, FILE_NAME + "." + (MAX_FILES - 1));
+        if (oldest.exists() && !oldest.delete()) {
+            Log.e(TAG, "删除旧日志失败: " + oldest);
+        }
+        for (int i = MAX_FILES - 2; i >= 1; i--) {
+            File from = new File(dir, FILE_NAME + "." + i);
+            if (from.exists() && !from.renameTo(new File(dir, FILE_NAME + "." + (i + 1)))) {
+                Log.e(TAG, "轮转日志失败: " + from);
+            }
+        }
+        if (!getCurrentFile().renameTo(new File(dir, FILE_NAME + ".1"))) {
+            Log.e(TAG, "轮转日志失败: " + getCurrentFile());
+        }
+        rotationCount++;
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 忽略
+        }
+        channel = null;
+    }
+
+    public String describeCounters() {
+        return "写入 " + writtenCount + ", 丢弃 " + droppedCount.get() + ", 轮转 " + rotationCount;
+    }
+}
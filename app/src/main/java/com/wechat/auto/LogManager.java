@@ -5,43 +5,122 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * 运行日志
+ * 固定容量的环形缓冲区，写入只做一次原子自增和一次数组写，不加锁；
+ * 每条日志带递增序号和毫秒时间戳，读取时才格式化时间，读者按序号增量读取
+ */
 public class LogManager {
-    private static final int MAX_LOGS = 200;
-    private static final List<String> logs = new ArrayList<>();
-    private static final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-    
+    /** 保留的日志条数，必须是 2 的幂 */
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+
+    // 下一条日志的序号
+    private static final AtomicLong nextSequence = new AtomicLong();
+    private static final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(CAPACITY);
+    // 清除时的序号，之前的日志不再返回
+    private static volatile long clearedBefore = 0;
+    // 日志落盘，未安装时为 null
+    private static volatile LogFileSink sink;
+
+    // SimpleDateFormat 非线程安全，每个读取线程一份；ThreadLocal.withInitial 需要 API 26
+    private static final ThreadLocal<SimpleDateFormat> dateFormat = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+        }
+    };
+
+    /**
+     * 一条日志，创建后不可变
+     */
+    public static class Entry {
+        public final long sequence;
+        public final long timeMillis;
+        public final String message;
+
+        Entry(long sequence, long timeMillis, String message) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.message = message;
+        }
+
+        public String formatTime() {
+            return dateFormat.get().format(new Date(timeMillis));
+        }
+
+        @Override
+        public String toString() {
+            return formatTime() + " - " + message;
+        }
+    }
+
     public static void log(String message) {
-        String timestamp = dateFormat.format(new Date());
-        String logEntry = timestamp + " - " + message;
-        
-        synchronized (logs) {
-            logs.add(logEntry);
-            if (logs.size() > MAX_LOGS) {
-                logs.remove(0);
+        long sequence = nextSequence.getAndIncrement();
+        Entry entry = new Entry(sequence, System.currentTimeMillis(), message);
+        entries.set((int) (sequence & MASK), entry);
+
+        LogFileSink fileSink = sink;
+        if (fileSink != null) {
+            fileSink.offer(entry);
+        }
+    }
+
+    static void setSink(LogFileSink fileSink) {
+        sink = fileSink;
+    }
+
+    /**
+     * 下一条日志将使用的序号，可作为 readSince 的起点只读之后的新日志
+     */
+    public static long getNextSequence() {
+        return nextSequence.get();
+    }
+
+    /**
+     * 读取序号不小于 fromSequence 的日志，按序号排列；
+     * 已被覆盖的日志跳过，遇到序号已分配但还没写完的日志时停止，下次从它继续读
+     */
+    public static List<Entry> readSince(long fromSequence) {
+        long end = nextSequence.get();
+        long start = Math.max(Math.max(fromSequence, clearedBefore), end - CAPACITY);
+        List<Entry> result = new ArrayList<>((int) Math.max(0, end - start));
+
+        for (long sequence = start; sequence < end; sequence++) {
+            Entry entry = entries.get((int) (sequence & MASK));
+            if (entry == null || entry.sequence < sequence) {
+                // 还没写完
+                break;
             }
+            if (entry.sequence == sequence) {
+                result.add(entry);
+            }
+            // entry.sequence > sequence：已被更新的日志覆盖
         }
+        return result;
     }
-    
+
     public static List<String> getLogs() {
-        synchronized (logs) {
-            return new ArrayList<>(logs);
+        List<Entry> snapshot = readSince(0);
+        List<String> logs = new ArrayList<>(snapshot.size());
+        for (Entry entry : snapshot) {
+            logs.add(entry.toString());
         }
+        return logs;
     }
-    
+
     public static void clear() {
-        synchronized (logs) {
-            logs.clear();
-        }
+        clearedBefore = nextSequence.get();
     }
-    
+
     public static String getAllLogsAsString() {
-        synchronized (logs) {
-            StringBuilder sb = new StringBuilder();
-            for (String log : logs) {
-                sb.append(log).append("\n");
-            }
-            return sb.toString();
+        StringBuilder sb = new StringBuilder();
+        for (Entry entry : readSince(0)) {
+            sb.append(entry).append("\n");
         }
+        return sb.toString();
     }
 }
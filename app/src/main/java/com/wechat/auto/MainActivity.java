@@ -6,6 +6,7 @@ import android.provider.Settings;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
@@ -15,6 +16,8 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 public class MainActivity extends AppCompatActivity {
     
@@ -105,8 +108,8 @@ public class MainActivity extends AppCompatActivity {
                 }
                 
                 @Override
-                public void onEdit(int position, String keyword, String reply) {
-                    showEditKeywordDialog(position, keyword, reply);
+                public void onEdit(int position, String keyword, String reply, String type) {
+                    showEditKeywordDialog(position, keyword, reply, type);
                 }
             });
             recyclerKeywords.setAdapter(keywordAdapter);
@@ -139,6 +142,7 @@ public class MainActivity extends AppCompatActivity {
         View dialogView = getLayoutInflater().inflate(R.layout.dialog_add_keyword, null);
         EditText editKeyword = dialogView.findViewById(R.id.edit_keyword);
         EditText editReply = dialogView.findViewById(R.id.edit_reply);
+        Spinner spinnerType = dialogView.findViewById(R.id.spinner_rule_type);
         
         new AlertDialog.Builder(this)
             .setTitle("添加关键词")
@@ -146,13 +150,18 @@ public class MainActivity extends AppCompatActivity {
             .setPositiveButton("添加", (dialog, which) -> {
                 String keyword = editKeyword.getText().toString().trim();
                 String reply = editReply.getText().toString().trim();
+                String type = getRuleType(spinnerType.getSelectedItemPosition());
                 
                 if (keyword.isEmpty() || reply.isEmpty()) {
                     Toast.makeText(this, "关键词和回复不能为空", Toast.LENGTH_SHORT).show();
                     return;
                 }
+                if (!isValidRule(keyword, type)) {
+                    Toast.makeText(this, "正则表达式无效", Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 
-                configManager.addKeyword(keyword, reply);
+                configManager.addKeyword(keyword, reply, type);
                 keywordAdapter.updateData(configManager.getKeywords());
                 Toast.makeText(this, "添加成功", Toast.LENGTH_SHORT).show();
             })
@@ -160,13 +169,15 @@ public class MainActivity extends AppCompatActivity {
             .show();
     }
     
-    private void showEditKeywordDialog(int position, String keyword, String reply) {
+    private void showEditKeywordDialog(int position, String keyword, String reply, String type) {
         View dialogView = getLayoutInflater().inflate(R.layout.dialog_add_keyword, null);
         EditText editKeyword = dialogView.findViewById(R.id.edit_keyword);
         EditText editReply = dialogView.findViewById(R.id.edit_reply);
+        Spinner spinnerType = dialogView.findViewById(R.id.spinner_rule_type);
         
         editKeyword.setText(keyword);
         editReply.setText(reply);
+        spinnerType.setSelection(getRuleTypePosition(type));
         
         new AlertDialog.Builder(this)
             .setTitle("编辑关键词")
@@ -174,13 +185,18 @@ public class MainActivity extends AppCompatActivity {
             .setPositiveButton("保存", (dialog, which) -> {
                 String newKeyword = editKeyword.getText().toString().trim();
                 String newReply = editReply.getText().toString().trim();
+                String newType = getRuleType(spinnerType.getSelectedItemPosition());
                 
                 if (newKeyword.isEmpty() || newReply.isEmpty()) {
                     Toast.makeText(this, "关键词和回复不能为空", Toast.LENGTH_SHORT).show();
                     return;
                 }
+                if (!isValidRule(newKeyword, newType)) {
+                    Toast.makeText(this, "正则表达式无效", Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 
-                configManager.updateKeyword(position, newKeyword, newReply);
+                configManager.updateKeyword(position, newKeyword, newReply, newType);
                 keywordAdapter.updateData(configManager.getKeywords());
                 Toast.makeText(this, "保存成功", Toast.LENGTH_SHORT).show();
             })
@@ -188,6 +204,34 @@ public class MainActivity extends AppCompatActivity {
             .show();
     }
     
+    /**
+     * 下拉框位置 -> 规则类型，默认项返回 null
+     */
+    private String getRuleType(int position) {
+        String[] values = getResources().getStringArray(R.array.rule_type_values);
+        if (position <= 0 || position >= values.length) return null;
+        return values[position];
+    }
+    
+    private int getRuleTypePosition(String type) {
+        if (type == null) return 0;
+        String[] values = getResources().getStringArray(R.array.rule_type_values);
+        for (int i = 1; i < values.length; i++) {
+            if (values[i].equals(type)) return i;
+        }
+        return 0;
+    }
+    
+    private boolean isValidRule(String keyword, String type) {
+        if (!ConfigManager.KeywordItem.TYPE_REGEX.equals(type)) return true;
+        try {
+            Pattern.compile(keyword);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+    
     @Override
     protected void onResume() {
         super.onResume();
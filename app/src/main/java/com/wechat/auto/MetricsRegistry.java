@@ -0,0 +1,241 @@
+package com.wechat.auto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 各处理阶段的耗时统计
+ * 每个指标一个对数分桶直方图（每个 2 的幂区间再均分 4 桶，分位数取桶中点，相对误差约 12%），
+ * 所有计数放在预先分配的 AtomicLongArray 中，记录时不加锁、不分配对象；
+ * 耗时以微秒为单位，读取时汇总出次数、均值、p50/p90/p99 和最大值
+ */
+public class MetricsRegistry {
+
+    public enum Metric {
+        EVENT_QUEUE("事件排队"),
+        ROOT_FETCH("获取根节点"),
+        LOCATE_TEXT("定位-文本"),
+        LOCATE_VIEW_ID("定位-ViewId"),
+        LOCATE_GEOMETRY("定位-位置"),
+        LOCATE_KEYWORD("定位-关键词"),
+        LOCATE_SCREENSHOT("定位-截图"),
+        GESTURE_DISPATCH("手势分发"),
+        GESTURE_COMPLETE("手势完成"),
+        ANSWER_CONFIRM("点击到确认"),
+        TIME_TO_ANSWER("事件到接听"),
+        REPLY_MATCH("关键词匹配"),
+        REPLY_SEND("发送消息"),
+        TIME_TO_REPLY("事件到回复");
+
+        public final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+
+        /**
+         * 定位方式对应的指标，没有对应指标（如盲点）时返回 null
+         */
+        public static Metric forStrategy(String strategy) {
+            switch (strategy) {
+                case AnswerLocatorCache.STRATEGY_TEXT: return LOCATE_TEXT;
+                case AnswerLocatorCache.STRATEGY_VIEW_ID: return LOCATE_VIEW_ID;
+                case AnswerLocatorCache.STRATEGY_GEOMETRY: return LOCATE_GEOMETRY;
+                case AnswerLocatorCache.STRATEGY_KEYWORD: return LOCATE_KEYWORD;
+                case AnswerLocatorCache.STRATEGY_SCREENSHOT: return LOCATE_SCREENSHOT;
+                default: return null;
+            }
+        }
+    }
+
+    public enum Counter {
+        ANSWER_CONFIRMED("接听确认"),
+        ANSWER_UNCONFIRMED("接听未确认"),
+        REPLY_SENT("回复成功"),
+        REPLY_FAILED("回复失败");
+
+        public final String label;
+
+        Counter(String label) {
+            this.label = label;
+        }
+    }
+
+    // 小于 4 的值各占一桶，之后每个 2 的幂区间 4 桶，覆盖到 2^62 微秒
+    private static final int SUB_BUCKETS = 4;
+    static final int BUCKETS = 62 * SUB_BUCKETS;
+
+    private static final Metric[] METRICS = Metric.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    private static final AtomicLongArray buckets = new AtomicLongArray(METRICS.length * BUCKETS);
+    private static final AtomicLongArray sums = new AtomicLongArray(METRICS.length);
+    private static final AtomicLongArray maxima = new AtomicLongArray(METRICS.length);
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+
+    /**
+     * 计时起点，配合 recordSince 使用
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    public static void recordSince(Metric metric, long startNanos) {
+        record(metric, microsSince(startNanos));
+    }
+
+    /**
+     * 从计时起点到现在经过的微秒数，用于先计时、稍后再决定是否记录的场景
+     */
+    public static long microsSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    public static void recordMillis(Metric metric, long millis) {
+        record(metric, millis * 1000);
+    }
+
+    public static void record(Metric metric, long micros) {
+        long value = Math.max(0, micros);
+        int index = metric.ordinal();
+        buckets.incrementAndGet(index * BUCKETS + bucketOf(value));
+        sums.addAndGet(index, value);
+
+        long max;
+        while (value > (max = maxima.get(index))) {
+            if (maxima.compareAndSet(index, max, value)) break;
+        }
+    }
+
+    public static void increment(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (msb - 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * 桶的中点，用作分位数的估计
+     */
+    static long bucketMidpoint(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+
+    /**
+     * 一个指标在某一时刻的汇总（微秒）
+     */
+    public static class Summary {
+        public final Metric metric;
+        public final long count;
+        public final long mean;
+        public final long p50;
+        public final long p90;
+        public final long p99;
+        public final long max;
+
+        Summary(Metric metric, long count, long mean, long p50, long p90, long p99, long max) {
+            this.metric = metric;
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %d次, 均值 %s, p50 %s, p90 %s, p99 %s, 最大 %s",
+                metric.label, count, formatMicros(mean), formatMicros(p50), formatMicros(p90),
+                formatMicros(p99), formatMicros(max));
+        }
+    }
+
+    /**
+     * 汇总一个指标；与记录并发时各计数可能相差几次
+     */
+    public static Summary summarize(Metric metric) {
+        int index = metric.ordinal();
+        long[] histogram = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = buckets.get(index * BUCKETS + i);
+            total += histogram[i];
+        }
+
+        long max = maxima.get(index);
+        long mean = total > 0 ? sums.get(index) / total : 0;
+        return new Summary(metric, total, mean,
+            percentile(histogram, total, 0.50, max),
+            percentile(histogram, total, 0.90, max),
+            percentile(histogram, total, 0.99, max),
+            max);
+    }
+
+    private static long percentile(long[] histogram, long total, double fraction, long max) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return Math.min(bucketMidpoint(i), max);
+            }
+        }
+        return max;
+    }
+
+    public static List<Summary> snapshot() {
+        List<Summary> summaries = new ArrayList<>(METRICS.length);
+        for (Metric metric : METRICS) {
+            summaries.add(summarize(metric));
+        }
+        return summaries;
+    }
+
+    public static long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    /**
+     * 输出所有有数据的指标和计数器，每项一行
+     */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Summary summary : snapshot()) {
+            if (summary.count > 0) {
+                sb.append(summary).append("\n");
+            }
+        }
+        for (Counter counter : COUNTERS) {
+            sb.append(counter.label).append(": ").append(getCount(counter)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    public static void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < METRICS.length; i++) {
+            sums.set(i, 0);
+            maxima.set(i, 0);
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private static String formatMicros(long micros) {
+        return String.format(Locale.US, "%.1fms", micros / 1000.0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.wechat.auto;
+
+import android.graphics.Rect;
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * 可复用的节点树遍历工具
+ * 用显式栈代替递归，按先序访问；可按区域裁剪子树、由访问者提前终止；
+ * 遍历中取得的子节点访问完即回收，访问者需要保留节点时自行 AccessibilityNodeInfo.obtain()
+ * 非线程安全，每个线程使用自己的实例
+ */
+public class NodeTreeWalker {
+
+    /** 继续访问子节点 */
+    public static final int CONTINUE = 0;
+    /** 跳过该节点的子树 */
+    public static final int SKIP_CHILDREN = 1;
+    /** 立即结束遍历 */
+    public static final int STOP = 2;
+
+    public interface Visitor {
+        int visit(AccessibilityNodeInfo node, int depth);
+    }
+
+    private final ArrayList<AccessibilityNodeInfo> nodeStack = new ArrayList<>();
+    private int[] depthStack = new int[64];
+    private final Rect bounds = new Rect();
+
+    /**
+     * 遍历以 root 为根的树，root 本身不会被回收
+     *
+     * @param region 只访问与该区域相交的子树，为 null 时不裁剪
+     */
+    public void walk(AccessibilityNodeInfo root, Rect region, Visitor visitor) {
+        if (root == null) return;
+
+        try {
+            int result = visitNode(root, 0, region, visitor);
+            if (result == STOP) return;
+            if (result == CONTINUE) {
+                pushChildren(root, 1);
+            }
+
+            while (!nodeStack.isEmpty()) {
+                int top = nodeStack.size() - 1;
+                AccessibilityNodeInfo node = nodeStack.remove(top);
+                int depth = depthStack[top];
+                try {
+                    result = visitNode(node, depth, region, visitor);
+                    if (result == STOP) return;
+                    if (result == CONTINUE) {
+                        pushChildren(node, depth + 1);
+                    }
+                } finally {
+                    node.recycle();
+                }
+            }
+        } finally {
+            // 提前终止时回收栈里剩下的节点
+            for (int i = nodeStack.size() - 1; i >= 0; i--) {
+                nodeStack.get(i).recycle();
+            }
+            nodeStack.clear();
+        }
+    }
+
+    private int visitNode(AccessibilityNodeInfo node, int depth, Rect region, Visitor visitor) {
+        if (region != null) {
+            node.getBoundsInScreen(bounds);
+            if (!Rect.intersects(region, bounds)) {
+                return SKIP_CHILDREN;
+            }
+        }
+        return visitor.visit(node, depth);
+    }
+
+    private void pushChildren(AccessibilityNodeInfo node, int depth) {
+        // 倒序入栈，保证出栈顺序与递归先序一致
+        for (int i = node.getChildCount() - 1; i >= 0; i--) {
+            AccessibilityNodeInfo child = node.getChild(i);
+            if (child == null) continue;
+
+            int index = nodeStack.size();
+            if (index == depthStack.length) {
+                depthStack = Arrays.copyOf(depthStack, index * 2);
+            }
+            nodeStack.add(child);
+            depthStack[index] = depth;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.wechat.auto;
+
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻的 root shell 会话
+ * 只启动一次 su 进程，命令写入它的标准输入，每条命令后输出带序号的结束标记和退出码；
+ * 由 startAsync 在后台线程启动并检测 root（授权弹窗可能要等很久），检测失败后整个进程内不再尝试。
+ * 会话异常（进程退出、命令超时、读写失败）时关闭并在后台重启，连续失败过多则停用；
+ * 启动或重启期间 exec 直接返回失败，不阻塞调用线程
+ */
+public class RootShell {
+    private static final String TAG = "RootShell";
+
+    /** 单条命令默认超时 */
+    public static final long DEFAULT_TIMEOUT_MS = 2000;
+    /** 执行失败时返回的退出码 */
+    public static final int EXIT_FAILED = -1;
+    // 连续重启失败达到该次数后停用
+    private static final int MAX_RESTART_FAILURES = 3;
+    // 等待输出时检查进程是否存活的间隔
+    private static final long ALIVE_CHECK_INTERVAL_MS = 100;
+    private static final String MARKER = "__ROOT_SHELL_END__";
+
+    private enum State {
+        UNKNOWN, AVAILABLE, DISABLED
+    }
+
+    private volatile State state = State.UNKNOWN;
+    // 后台启动是否正在进行
+    private volatile boolean starting = false;
+    private volatile boolean closed = false;
+    private volatile Process process;
+    private OutputStream stdin;
+    private BlockingQueue<String> output;
+    private int sequence = 0;
+    // 最近一条命令在结束标记之前输出的最后一行
+    private String lastLine;
+    private int restartFailures = 0;
+
+    private volatile long commandCount = 0;
+    private volatile long failureCount = 0;
+    private volatile long restartCount = 0;
+
+    /**
+     * 是否已确认没有 root 权限（或失败过多已停用）
+     */
+    public boolean isDisabled() {
+        return state == State.DISABLED;
+    }
+
+    /**
+     * root shell 是否已启动并可以执行命令
+     */
+    public boolean isAvailable() {
+        return state == State.AVAILABLE && !starting;
+    }
+
+    /**
+     * 在后台线程启动 su 会话并检测 root，服务连接时调用；已在启动或会话可用时忽略
+     */
+    public synchronized void startAsync() {
+        if (closed || starting || state == State.DISABLED || (process != null && isAlive(process))) {
+            return;
+        }
+        starting = true;
+        Thread thread = new Thread(() -> {
+            synchronized (RootShell.this) {
+                try {
+                    if (!closed) {
+                        ensureSession();
+                    }
+                } finally {
+                    starting = false;
+                }
+            }
+        }, "RootShellStart");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int exec(String command) {
+        return exec(command, DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * 在 root shell 中执行一条命令，返回退出码；
+     * 没有 root、会话尚未启动好、超时或会话异常时返回 EXIT_FAILED
+     */
+    public int exec(String command, long timeoutMs) {
+        // 启动检测可能持锁很久，先不加锁判断，避免调用线程被阻塞
+        if (!isAvailable()) {
+            return EXIT_FAILED;
+        }
+
+        synchronized (this) {
+            if (process == null || !isAlive(process)) {
+                if (process != null) {
+                    LogManager.log("✗ root shell 已退出，后台重新启动");
+                    closeSession();
+                }
+                startAsync();
+                return EXIT_FAILED;
+            }
+
+            commandCount++;
+            int exitCode = run(command, timeoutMs);
+            if (exitCode == EXIT_FAILED) {
+                failureCount++;
+            }
+            return exitCode;
+        }
+    }
+
+    /**
+     * 确保会话可用：启动并检测 root，已有进程时检查是否还活着；只在后台启动线程中调用
+     */
+    private boolean ensureSession() {
+        if (process != null && isAlive(process)) {
+            return true;
+        }
+        if (process != null) {
+            LogManager.log("✗ root shell 已退出，重新启动");
+            closeSession();
+        }
+
+        if (start()) {
+            state = State.AVAILABLE;
+            restartFailures = 0;
+            return true;
+        }
+
+        // 从未成功过说明设备没有 root 或授权被拒绝
+        if (state == State.UNKNOWN || ++restartFailures >= MAX_RESTART_FAILURES) {
+            state = State.DISABLED;
+            LogManager.log("✗ root 不可用，停用 Shell 点击");
+        }
+        return false;
+    }
+
+    private boolean start() {
+        try {
+            if (state == State.AVAILABLE) {
+                restartCount++;
+            }
+            process = new ProcessBuilder("su").redirectErrorStream(true).start();
+            stdin = process.getOutputStream();
+            output = new LinkedBlockingQueue<>();
+            startReader(process, output);
+
+            // 授权弹窗可能需要用户确认，检测时放宽超时
+            if (run("id -u", DEFAULT_TIMEOUT_MS * 5) != 0 || !"0".equals(lastLine)) {
+                LogManager.log("✗ su 未获得 root 身份");
+                closeSession();
+                return false;
+            }
+            LogManager.log("✓ root shell 已启动");
+            return true;
+        } catch (IOException e) {
+            Log.i(TAG, "启动 su 失败: " + e.getMessage());
+            closeSession();
+            return false;
+        }
+    }
+
+    /**
+     * 写入命令和结束标记，等待对应序号的标记；失败时关闭会话
+     */
+    private int run(String command, long timeoutMs) {
+        int id = ++sequence;
+        String marker = MARKER + id;
+        lastLine = null;
+        try {
+            String script = command + "\necho " + marker + " $?\n";
+            stdin.write(script.getBytes(StandardCharsets.UTF_8));
+            stdin.flush();
+
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    LogManager.log("✗ root shell 命令超时: " + command);
+                    closeSession();
+                    return EXIT_FAILED;
+                }
+                String line = output.poll(Math.min(remaining, ALIVE_CHECK_INTERVAL_MS), TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    // 进程已退出（例如命令里执行了 exit）时不必等到超时
+                    if (!isAlive(process) && output.isEmpty()) {
+                        LogManager.log("✗ root shell 已退出: " + command);
+                        closeSession();
+                        return EXIT_FAILED;
+                    }
+                    continue;
+                }
+                if (line.startsWith(marker + " ")) {
+                    return Integer.parseInt(line.substring(marker.length() + 1).trim());
+                }
+                // 更早的标记说明之前的命令超时后才结束，忽略
+                if (!line.startsWith(MARKER)) {
+                    lastLine = line.trim();
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LogManager.log("✗ root shell 异常: " + e.getMessage());
+            closeSession();
+            return EXIT_FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeSession();
+            return EXIT_FAILED;
+        }
+    }
+
+    /**
+     * 后台线程逐行读取输出，进程退出后线程自然结束
+     */
+    private static void startReader(Process process, BlockingQueue<String> output) {
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    output.offer(line);
+                }
+            } catch (IOException e) {
+                // 进程被销毁时读取中断
+            }
+        }, "RootShellReader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Process.isAlive() 需要 API 26
+    private static boolean isAlive(Process process) {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    private void closeSession() {
+        if (process == null) return;
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            // 进程可能已经退出
+        }
+        process.destroy();
+        process = null;
+        stdin = null;
+        output = null;
+    }
+
+    /**
+     * 服务销毁时调用，结束 su 进程
+     */
+    public void close() {
+        closed = true;
+        // 后台检测可能正持锁等待授权，先结束进程让它尽快退出
+        Process current = process;
+        if (current != null) {
+            current.destroy();
+        }
+        synchronized (this) {
+            closeSession();
+        }
+    }
+
+    public String describeCounters() {
+        return "状态 " + state + ", 命令 " + commandCount + ", 失败 " + failureCount + ", 重启 " + restartCount;
+    }
+}
@@ -0,0 +1,221 @@
+package com.wechat.auto;
+
+import android.accessibilityservice.AccessibilityService;
+import android.graphics.Bitmap;
+import android.hardware.HardwareBuffer;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.Display;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 截图调度
+ * 系统限制无障碍截图的最小间隔，间隔内再次调用会直接失败；
+ * 这里保存最近一帧及其时间，新鲜度窗口内的请求直接复用，
+ * 否则排队等到允许的时间再统一截一次图，截图的 HardwareBuffer 拷贝后立即关闭。
+ * 所有方法和回调都在 handler 所在线程执行，回调中拿到的帧只在回调内有效
+ */
+@SuppressWarnings("NewApi")
+public class ScreenshotBroker {
+
+    /**
+     * 系统允许的最小截图间隔：Android 14（API 34）起为 333ms，Android 11-13 约为 1 秒
+     */
+    public static final long MIN_INTERVAL_MS = Build.VERSION.SDK_INT >= 34 ? 333 : 1000;
+    /** 默认新鲜度窗口 */
+    public static final long DEFAULT_MAX_AGE_MS = 500;
+    // 仍然提示间隔太短时的重试次数
+    private static final int MAX_INTERVAL_RETRIES = 2;
+    // release 等待 handler 线程完成清理的最长时间
+    private static final long RELEASE_TIMEOUT_MS = 500;
+
+    public interface Callback {
+        void onFrame(Frame frame);
+        void onFailure(int errorCode);
+    }
+
+    /**
+     * 一帧截图：软件位图（ARGB_8888）及截图时间（uptimeMillis）
+     */
+    public static class Frame {
+        public final Bitmap bitmap;
+        public final long timestamp;
+
+        Frame(Bitmap bitmap, long timestamp) {
+            this.bitmap = bitmap;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final AccessibilityService service;
+    private final Handler handler;
+
+    private Frame latestFrame;
+    private final List<Callback> pending = new ArrayList<>();
+    private boolean captureScheduled = false;
+    private boolean captureInFlight = false;
+    private long lastCaptureTime = -MIN_INTERVAL_MS;
+    private int intervalRetries = 0;
+
+    private volatile long captureCount = 0;
+    private volatile long reuseCount = 0;
+    private volatile long failureCount = 0;
+
+    private final Runnable captureRunnable = this::capture;
+
+    public ScreenshotBroker(AccessibilityService service, Handler handler) {
+        this.service = service;
+        this.handler = handler;
+    }
+
+    /**
+     * 请求一帧不早于 maxAgeMs 之前的截图，maxAgeMs 为 0 时总是重新截图
+     */
+    public void request(long maxAgeMs, Callback callback) {
+        long now = SystemClock.uptimeMillis();
+        if (latestFrame != null && maxAgeMs > 0 && now - latestFrame.timestamp <= maxAgeMs) {
+            reuseCount++;
+            callback.onFrame(latestFrame);
+            return;
+        }
+
+        pending.add(callback);
+        scheduleCapture();
+    }
+
+    private void scheduleCapture() {
+        if (captureScheduled || captureInFlight || pending.isEmpty()) return;
+
+        captureScheduled = true;
+        long delay = lastCaptureTime + MIN_INTERVAL_MS - SystemClock.uptimeMillis();
+        handler.postDelayed(captureRunnable, Math.max(0, delay));
+    }
+
+    private void capture() {
+        captureScheduled = false;
+        captureInFlight = true;
+        lastCaptureTime = SystemClock.uptimeMillis();
+        try {
+            service.takeScreenshot(Display.DEFAULT_DISPLAY, handler::post,
+                new AccessibilityService.TakeScreenshotCallback() {
+                    @Override
+                    public void onSuccess(AccessibilityService.ScreenshotResult screenshotResult) {
+                        onCaptured(screenshotResult);
+                    }
+
+                    @Override
+                    public void onFailure(int errorCode) {
+                        onCaptureFailed(errorCode);
+                    }
+                });
+        } catch (Exception e) {
+            LogManager.log("✗ 截图异常: " + e.getMessage());
+            onCaptureFailed(AccessibilityService.ERROR_TAKE_SCREENSHOT_INTERNAL_ERROR);
+        }
+    }
+
+    private void onCaptured(AccessibilityService.ScreenshotResult screenshotResult) {
+        captureInFlight = false;
+        intervalRetries = 0;
+
+        Bitmap softBitmap = null;
+        HardwareBuffer buffer = screenshotResult.getHardwareBuffer();
+        try {
+            Bitmap hardwareBitmap = buffer != null
+                ? Bitmap.wrapHardwareBuffer(buffer, screenshotResult.getColorSpace()) : null;
+            if (hardwareBitmap != null) {
+                softBitmap = hardwareBitmap.copy(Bitmap.Config.ARGB_8888, false);
+                hardwareBitmap.recycle();
+            }
+        } catch (Exception e) {
+            LogManager.log("✗ 处理截图失败: " + e.getMessage());
+        } finally {
+            if (buffer != null) {
+                buffer.close();
+            }
+        }
+
+        if (softBitmap == null) {
+            onCaptureFailed(AccessibilityService.ERROR_TAKE_SCREENSHOT_INTERNAL_ERROR);
+            return;
+        }
+
+        captureCount++;
+        replaceLatestFrame(new Frame(softBitmap, lastCaptureTime));
+
+        List<Callback> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Callback callback : callbacks) {
+            callback.onFrame(latestFrame);
+        }
+    }
+
+    private void onCaptureFailed(int errorCode) {
+        captureInFlight = false;
+
+        // 其他地方刚截过图：按间隔重新排队，不把失败交给调用方
+        if (errorCode == AccessibilityService.ERROR_TAKE_SCREENSHOT_INTERVAL_TIME_SHORT
+                && intervalRetries < MAX_INTERVAL_RETRIES) {
+            intervalRetries++;
+            scheduleCapture();
+            return;
+        }
+
+        intervalRetries = 0;
+        failureCount++;
+        List<Callback> callbacks = new ArrayList<>(pending);
+        pending.clear();
+        for (Callback callback : callbacks) {
+            callback.onFailure(errorCode);
+        }
+    }
+
+    private void replaceLatestFrame(Frame frame) {
+        if (latestFrame != null) {
+            latestFrame.bitmap.recycle();
+        }
+        latestFrame = frame;
+    }
+
+    /**
+     * 服务销毁时调用，丢弃排队请求和最近一帧
+     * 可在任意线程调用：清理插到 handler 队列最前面执行并等待完成，与截图回调串行；
+     * 返回后调用方可以直接清空队列、退出 handler 线程
+     */
+    public void release() {
+        if (handler.getLooper().isCurrentThread()) {
+            releaseOnHandler();
+            return;
+        }
+
+        CountDownLatch done = new CountDownLatch(1);
+        boolean posted = handler.postAtFrontOfQueue(() -> {
+            releaseOnHandler();
+            done.countDown();
+        });
+        if (!posted) return;
+        try {
+            if (!done.await(RELEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LogManager.log("✗ 截图调度清理超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void releaseOnHandler() {
+        handler.removeCallbacks(captureRunnable);
+        captureScheduled = false;
+        pending.clear();
+        // 最近一帧可能仍在工作线程中使用，不主动回收，交给 GC
+        latestFrame = null;
+    }
+
+    public String describeCounters() {
+        return "截图 " + captureCount + ", 复用 " + reuseCount + ", 失败 " + failureCount;
+    }
+}
@@ -0,0 +1,116 @@
+package com.wechat.auto;
+
+import android.accessibilityservice.AccessibilityService;
+import android.view.accessibility.AccessibilityNodeInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单次事件的界面快照
+ * 每次获取根节点、按文本或 ViewId 查找都是一次跨进程调用；
+ * 快照在一次事件内只获取一次根节点，并缓存查询结果供各检测方法共用，事件结束时统一回收
+ */
+public class UiSnapshot {
+
+    private final AccessibilityService service;
+    private AccessibilityNodeInfo root;
+    private boolean rootFetched = false;
+
+    private final Map<String, List<AccessibilityNodeInfo>> textQueries = new HashMap<>();
+    private final Map<String, List<AccessibilityNodeInfo>> viewIdQueries = new HashMap<>();
+    // 通过其他途径获得（getParent/getChild 等）、需要在结束时回收的节点
+    private final List<AccessibilityNodeInfo> trackedNodes = new ArrayList<>();
+
+    public UiSnapshot(AccessibilityService service) {
+        this.service = service;
+    }
+
+    /**
+     * 获取根节点，同一快照内只获取一次
+     */
+    public AccessibilityNodeInfo getRoot() {
+        if (!rootFetched) {
+            rootFetched = true;
+            long start = MetricsRegistry.now();
+            root = service.getRootInActiveWindow();
+            MetricsRegistry.recordSince(MetricsRegistry.Metric.ROOT_FETCH, start);
+        }
+        return root;
+    }
+
+    /**
+     * 按文本查找节点，结果在快照内缓存
+     */
+    public List<AccessibilityNodeInfo> findByText(String text) {
+        List<AccessibilityNodeInfo> result = textQueries.get(text);
+        if (result == null) {
+            AccessibilityNodeInfo rootNode = getRoot();
+            result = rootNode != null ? rootNode.findAccessibilityNodeInfosByText(text) : null;
+            if (result == null) {
+                result = Collections.emptyList();
+            }
+            textQueries.put(text, result);
+        }
+        return result;
+    }
+
+    /**
+     * 按 ViewId 查找节点，结果在快照内缓存
+     */
+    public List<AccessibilityNodeInfo> findByViewId(String viewId) {
+        List<AccessibilityNodeInfo> result = viewIdQueries.get(viewId);
+        if (result == null) {
+            AccessibilityNodeInfo rootNode = getRoot();
+            result = rootNode != null ? rootNode.findAccessibilityNodeInfosByViewId(viewId) : null;
+            if (result == null) {
+                result = Collections.emptyList();
+            }
+            viewIdQueries.put(viewId, result);
+        }
+        return result;
+    }
+
+    /**
+     * 登记额外获得的节点，随快照一起回收
+     */
+    public AccessibilityNodeInfo track(AccessibilityNodeInfo node) {
+        if (node != null) {
+            trackedNodes.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * 事件处理结束时调用，回收根节点和所有查询结果
+     */
+    public void recycle() {
+        for (List<AccessibilityNodeInfo> nodes : textQueries.values()) {
+            recycleAll(nodes);
+        }
+        for (List<AccessibilityNodeInfo> nodes : viewIdQueries.values()) {
+            recycleAll(nodes);
+        }
+        recycleAll(trackedNodes);
+        textQueries.clear();
+        viewIdQueries.clear();
+        trackedNodes.clear();
+
+        if (root != null) {
+            root.recycle();
+            root = null;
+        }
+    }
+
+    private static void recycleAll(List<AccessibilityNodeInfo> nodes) {
+        for (AccessibilityNodeInfo node : nodes) {
+            try {
+                node.recycle();
+            } catch (IllegalStateException e) {
+                // 已被回收
+            }
+        }
+    }
+}
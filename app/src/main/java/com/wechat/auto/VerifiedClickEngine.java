@@ -0,0 +1,139 @@
+package com.wechat.auto;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 先验证再继续的点击引擎
+ * 依次执行候选点击，每次点击后隔一段时间检查是否已经生效（例如接听按钮或来电界面消失），
+ * 确认成功立即停止，不再补点，避免重复点击把刚接通的电话挂断；
+ * 点击或确认抛出异常时这一轮以异常结束，不会一直停在进行中；
+ * 所有步骤都在 handler 所在线程执行
+ */
+public class VerifiedClickEngine {
+
+    /** 点击后每次检查的间隔 */
+    public static final long VERIFY_INTERVAL_MS = 300;
+    /** 每次点击后最多检查几次，都未确认才尝试下一个候选 */
+    public static final int VERIFY_CHECKS = 3;
+
+    public interface Attempt {
+        CompletableFuture<GestureDispatcher.GestureOutcome> run();
+    }
+
+    public interface Verifier {
+        /**
+         * 点击是否已经生效
+         */
+        boolean isConfirmed();
+    }
+
+    /**
+     * 一轮点击的结果
+     */
+    public static class ClickResult {
+        public final boolean confirmed;
+        /** 实际执行的点击次数 */
+        public final int attempts;
+        /** 确认成功的候选下标，未确认时为 -1 */
+        public final int confirmedIndex;
+        /** 从开始到确认（或放弃）的耗时 */
+        public final long latencyMs;
+
+        ClickResult(boolean confirmed, int attempts, int confirmedIndex, long latencyMs) {
+            this.confirmed = confirmed;
+            this.attempts = attempts;
+            this.confirmedIndex = confirmedIndex;
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public String toString() {
+            return (confirmed ? "已确认" : "未确认") + ", 点击 " + attempts + " 次, 耗时 " + latencyMs + "ms";
+        }
+    }
+
+    private final Handler handler;
+
+    // 只在 handler 所在线程读写
+    private boolean running = false;
+
+    private volatile long runCount = 0;
+    private volatile long confirmedCount = 0;
+    private volatile long attemptCount = 0;
+
+    public VerifiedClickEngine(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * 是否有一轮点击正在进行
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    public CompletableFuture<ClickResult> run(List<Attempt> attempts, Verifier verifier) {
+        CompletableFuture<ClickResult> result = new CompletableFuture<>();
+        running = true;
+        runCount++;
+        result.whenComplete((clickResult, error) -> running = false);
+        next(result, attempts, verifier, 0, SystemClock.uptimeMillis());
+        return result;
+    }
+
+    private void next(CompletableFuture<ClickResult> result, List<Attempt> attempts, Verifier verifier,
+                      int index, long startTime) {
+        if (result.isDone()) return;
+        if (index >= attempts.size()) {
+            result.complete(new ClickResult(false, index, -1, SystemClock.uptimeMillis() - startTime));
+            return;
+        }
+
+        attemptCount++;
+        CompletableFuture<GestureDispatcher.GestureOutcome> future;
+        try {
+            future = attempts.get(index).run();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((outcome, error) -> {
+            // 分发被拒绝说明没有点下去，直接换下一个候选
+            if (outcome == null || outcome.status == GestureDispatcher.Status.REJECTED) {
+                next(result, attempts, verifier, index + 1, startTime);
+                return;
+            }
+            verify(result, attempts, verifier, index, startTime, 1);
+        });
+    }
+
+    private void verify(CompletableFuture<ClickResult> result, List<Attempt> attempts, Verifier verifier,
+                        int index, long startTime, int check) {
+        handler.postDelayed(() -> {
+            if (result.isDone()) return;
+
+            boolean confirmed;
+            try {
+                confirmed = verifier.isConfirmed();
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            if (confirmed) {
+                confirmedCount++;
+                result.complete(new ClickResult(true, index + 1, index, SystemClock.uptimeMillis() - startTime));
+            } else if (check < VERIFY_CHECKS) {
+                verify(result, attempts, verifier, index, startTime, check + 1);
+            } else {
+                next(result, attempts, verifier, index + 1, startTime);
+            }
+        }, VERIFY_INTERVAL_MS);
+    }
+
+    public String describeCounters() {
+        return "轮次 " + runCount + ", 确认 " + confirmedCount + ", 点击 " + attemptCount;
+    }
+}
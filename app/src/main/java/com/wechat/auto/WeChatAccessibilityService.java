@@ -3,7 +3,6 @@ package com.wechat.auto;
 import android.accessibilityservice.AccessibilityService;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.Color;
 import android.graphics.PixelFormat;
 import android.hardware.display.DisplayManager;
 import android.hardware.display.VirtualDisplay;
@@ -12,7 +11,6 @@ import android.media.ImageReader;
 import android.media.projection.MediaProjection;
 import android.os.Build;
 import android.os.Handler;
-import android.os.Looper;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.DisplayMetrics;
@@ -21,10 +19,17 @@ import android.view.Display;
 import android.view.WindowManager;
 import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
+import com.wechat.auto.vision.ArgbImage;
+import com.wechat.auto.vision.BlobDetector;
+import com.wechat.auto.vision.GreenButtonDetector;
+import com.wechat.auto.vision.PyramidGreenSearch;
+import com.wechat.auto.vision.TiledGreenScanner;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class WeChatAccessibilityService extends AccessibilityService {
     
@@ -39,19 +44,82 @@ public class WeChatAccessibilityService extends AccessibilityService {
     private ConfigManager configManager;
     private Map<String, Long> lastSendTime = new HashMap<>();
     private String lastProcessedMessage = "";
-    private Handler handler = new Handler(Looper.getMainLooper());
+    
+    // 事件处理在工作线程上进行，handler 指向工作线程
+    private EventPipeline eventPipeline;
+    private Handler handler;
     
     private int screenWidth;
     private int screenHeight;
     private int screenDensity;
     
-    private boolean isWeChatInForeground = false;
-    private Runnable periodicCheckRunnable;
+    // 备用点击的手势参数：按下时长 100ms 到 500ms
+    private static final GestureDispatcher.Variant[] BACKUP_GESTURE_VARIANTS = {
+        new GestureDispatcher.Variant(0, 0, 100),
+        new GestureDispatcher.Variant(0, 0, 200),
+        new GestureDispatcher.Variant(0, 0, 300),
+        new GestureDispatcher.Variant(0, 0, 400),
+        new GestureDispatcher.Variant(0, 0, 500)
+    };
+    
+    // 微信来电界面接听按钮的 View ID
+    private static final String[] ANSWER_VIEW_IDS = {
+        "com.tencent.mm:id/accept_btn",
+        "com.tencent.mm:id/btn_accept",
+        "com.tencent.mm:id/voip_accept_btn",
+        "com.tencent.mm:id/video_accept_btn",
+        "com.tencent.mm:id/answer_btn",
+        "com.tencent.mm:id/btn_answer"
+    };
+    // 微信通话界面的窗口类名特征（小写）
+    private static final String[] CALL_WINDOW_KEYWORDS = {
+        "voip", "multitalk", "videoactivity"
+    };
+    // 一轮接听最多点击的候选数，中心相距不超过该半径的候选视为同一个
+    private static final int MAX_ANSWER_ATTEMPTS = 4;
+    private static final int DUPLICATE_TARGET_RADIUS = 20;
+    
+    // 来电探测：只在出现来电信号时短时间探测
+    private CallProbeScheduler callProbeScheduler;
+    private String lastWindowClassName = "";
+    // 最近一个事件的时间（uptimeMillis）和本轮接听的起点，只在工作线程读写
+    private long lastEventTime = 0;
+    private long answerEventTime = 0;
+    // 当前事件使用的配置快照，只在工作线程读写
+    private ConfigSnapshot config;
+    
+    // 接听按钮定位缓存
+    private AnswerLocatorCache locatorCache;
+    
+    // 节点树遍历（只在工作线程使用）
+    private final NodeTreeWalker treeWalker = new NodeTreeWalker();
+    
+    // 截图像素缓冲，按帧大小复用（只在工作线程使用）
+    private int[] pixelBuffer;
+    private TiledGreenScanner greenScanner;
+    private ScreenshotBroker screenshotBroker;
+    private GestureDispatcher gestureDispatcher;
+    private VerifiedClickEngine answerClickEngine;
+    private final RootShell rootShell = new RootShell();
+    private final GreenButtonDetector quickDetector = new GreenButtonDetector();
+    private final PyramidGreenSearch pyramidSearch = new PyramidGreenSearch();
     
     @Override
     public void onCreate() {
         super.onCreate();
+        // 日志同时写入文件，进程被杀后仍可查看
+        LogFileSink.install(this);
         configManager = new ConfigManager(this);
+        eventPipeline = new EventPipeline("WeChatAutoWorker", this::processEvent);
+        eventPipeline.setCoalesceWindowMs(configManager.getCoalesceWindowMs());
+        configManager.setOnConfigChangedListener(
+            snapshot -> eventPipeline.setCoalesceWindowMs(snapshot.coalesceWindowMs));
+        handler = eventPipeline.getHandler();
+        locatorCache = new AnswerLocatorCache(this);
+        greenScanner = new TiledGreenScanner();
+        screenshotBroker = new ScreenshotBroker(this, handler);
+        gestureDispatcher = new GestureDispatcher(this, handler);
+        answerClickEngine = new VerifiedClickEngine(handler);
         
         // 执行系统诊断
         performSystemDiagnosis();
@@ -70,18 +138,16 @@ public class WeChatAccessibilityService extends AccessibilityService {
             LogManager.log("屏幕: " + screenWidth + "x" + screenHeight);
         }
         
-        // 初始化周期性检查
-        periodicCheckRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isWeChatInForeground && configManager.isAutoAnswerEnabled()) {
-                    checkForAnswerButton();
-                }
-                // 每2秒检查一次
-                handler.postDelayed(this, 2000);
+        // 初始化来电探测
+        callProbeScheduler = new CallProbeScheduler(handler, () -> {
+            if (!configManager.getSnapshot().autoAnswerEnabled) return false;
+            UiSnapshot snapshot = new UiSnapshot(this);
+            try {
+                return checkForAnswerButton(snapshot, callProbeScheduler.getArmedAt());
+            } finally {
+                snapshot.recycle();
             }
-        };
-        handler.postDelayed(periodicCheckRunnable, 5000); // 5秒后开始检查
+        });
         
         // 10秒后执行功能测试
         handler.postDelayed(() -> {
@@ -93,6 +159,13 @@ public class WeChatAccessibilityService extends AccessibilityService {
         Log.i(TAG, "✓ 无障碍服务已启动");
     }
     
+    @Override
+    protected void onServiceConnected() {
+        super.onServiceConnected();
+        // 在后台启动 su 并检测 root，来电时工作线程不用等待授权
+        rootShell.startAsync();
+    }
+    
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
         if (event == null) return;
@@ -100,7 +173,18 @@ public class WeChatAccessibilityService extends AccessibilityService {
         String packageName = event.getPackageName() != null ? event.getPackageName().toString() : "";
         if (!WECHAT_PACKAGE.equals(packageName)) return;
         
+        // 主线程只负责入队，实际处理在工作线程
+        eventPipeline.submit(event);
+    }
+    
+    /**
+     * 在工作线程上处理事件
+     */
+    private void processEvent(AccessibilityEvent event) {
         int eventType = event.getEventType();
+        lastEventTime = event.getEventTime();
+        // 整个事件只读取一次配置
+        config = configManager.getSnapshot();
         
         switch (eventType) {
             case AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED:
@@ -108,7 +192,7 @@ public class WeChatAccessibilityService extends AccessibilityService {
                 break;
                 
             case AccessibilityEvent.TYPE_WINDOW_CONTENT_CHANGED:
-                handleWindowContentChanged(event);
+                withSnapshot(snapshot -> handleWindowContentChanged(snapshot));
                 break;
                 
             case AccessibilityEvent.TYPE_NOTIFICATION_STATE_CHANGED:
@@ -117,6 +201,18 @@ public class WeChatAccessibilityService extends AccessibilityService {
         }
     }
     
+    /**
+     * 在一个界面快照内执行检测，结束后统一回收节点
+     */
+    private void withSnapshot(Consumer<UiSnapshot> task) {
+        UiSnapshot snapshot = new UiSnapshot(this);
+        try {
+            task.accept(snapshot);
+        } finally {
+            snapshot.recycle();
+        }
+    }
+    
     /**
      * 处理窗口状态变化 - 检测视频通话
      */
@@ -125,68 +221,67 @@ public class WeChatAccessibilityService extends AccessibilityService {
         Log.d(TAG, "窗口变化: " + className);
         LogManager.log("窗口: " + className);
         
-        // 标记微信是否在前台
-        isWeChatInForeground = true;
+        boolean classChanged = !className.equals(lastWindowClassName);
+        lastWindowClassName = className;
         
-        if (!configManager.isAutoAnswerEnabled()) {
+        if (!config.autoAnswerEnabled) {
             LogManager.log("⚠ 自动接听功能已关闭");
             return;
         }
         
-        // 不再依赖类名判断，只要是微信应用就尝试查找接听按钮
-        LogManager.log("→ 检查是否有接听按钮...");
-        
-        // 延迟一下，等待界面完全加载
-        handler.postDelayed(() -> {
-            checkForAnswerButton();
-        }, 300);
+        // 只有切换到通话界面才探测接听按钮，普通聊天界面的窗口切换不启动探测
+        if (classChanged && isCallWindowClass(className)) {
+            callProbeScheduler.arm("通话窗口");
+        }
+    }
+    
+    /**
+     * 窗口类名是否像微信的通话界面
+     */
+    private static boolean isCallWindowClass(String className) {
+        String name = className.toLowerCase(java.util.Locale.US);
+        for (String keyword : CALL_WINDOW_KEYWORDS) {
+            if (name.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
      * 处理窗口内容变化 - 检测新消息和接听按钮
      */
-    private void handleWindowContentChanged(AccessibilityEvent event) {
+    private void handleWindowContentChanged(UiSnapshot snapshot) {
         // 优先检查自动接听（视频通话按钮可能在内容变化时出现）
-        if (configManager.isAutoAnswerEnabled()) {
-            AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-            if (rootNode != null) {
-                try {
-                    // 快速检查是否有接听按钮
-                    List<AccessibilityNodeInfo> answerButtons = rootNode.findAccessibilityNodeInfosByText("接听");
-                    if (!answerButtons.isEmpty()) {
-                        Log.i(TAG, "内容变化检测到接听按钮");
-                        LogManager.log("✓ 内容变化检测到接听按钮");
-                        performAutoAnswer();
-                        return; // 找到接听按钮就不再处理消息
-                    }
-                } finally {
-                    rootNode.recycle();
-                }
+        if (config.autoAnswerEnabled) {
+            // 快速检查是否有接听按钮
+            List<AccessibilityNodeInfo> answerButtons = snapshot.findByText("接听");
+            if (!answerButtons.isEmpty()) {
+                Log.i(TAG, "内容变化检测到接听按钮");
+                LogManager.log("✓ 内容变化检测到接听按钮");
+                // 这一轮没有接通时由探测继续重试
+                callProbeScheduler.armIfIdle("接听文本");
+                performAutoAnswer(snapshot, lastEventTime);
+                return; // 找到接听按钮就不再处理消息
             }
         }
         
         // 处理自动回复
-        if (!configManager.isAutoReplyEnabled()) return;
-        
-        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-        if (rootNode == null) return;
-        
-        try {
-            // 检测聊天界面
-            String chatTitle = getChatTitle(rootNode);
-            if (chatTitle != null) {
-                // 获取最新消息
-                String latestMessage = getLatestMessage(rootNode);
-                if (latestMessage != null && !latestMessage.equals(lastProcessedMessage)) {
-                    lastProcessedMessage = latestMessage;
-                    Log.i(TAG, "收到消息: " + latestMessage);
-                    
-                    // 检查关键词并回复
-                    checkAndReply(chatTitle, latestMessage, rootNode);
-                }
+        if (!config.autoReplyEnabled) return;
+        if (snapshot.getRoot() == null) return;
+        
+        // 检测聊天界面
+        String chatTitle = getChatTitle(snapshot);
+        if (chatTitle != null) {
+            // 获取最新消息
+            String latestMessage = getLatestMessage(snapshot);
+            if (latestMessage != null && !latestMessage.equals(lastProcessedMessage)) {
+                lastProcessedMessage = latestMessage;
+                Log.i(TAG, "收到消息: " + latestMessage);
+                
+                // 检查关键词并回复
+                checkAndReply(chatTitle, latestMessage, snapshot);
             }
-        } finally {
-            rootNode.recycle();
         }
     }
     
@@ -194,7 +289,7 @@ public class WeChatAccessibilityService extends AccessibilityService {
      * 处理通知 - 检测来电
      */
     private void handleNotification(AccessibilityEvent event) {
-        if (!configManager.isAutoAnswerEnabled()) return;
+        if (!config.autoAnswerEnabled) return;
         
         List<CharSequence> texts = event.getText();
         Log.d(TAG, "收到通知，文本数量: " + texts.size());
@@ -213,10 +308,13 @@ public class WeChatAccessibilityService extends AccessibilityService {
                 content.toLowerCase().contains("call")) {
                 
                 Log.i(TAG, "检测到通话通知: " + content);
-                // 延迟处理，等待界面打开
+                callProbeScheduler.arm("来电通知");
+                // 探测没找到时，等界面打开后再走完整流程；耗时从通知事件算起
+                long notificationTime = lastEventTime;
                 handler.postDelayed(() -> {
+                    if (callProbeScheduler.isResolved()) return;
                     Log.i(TAG, "通知触发，尝试接听...");
-                    performAutoAnswer();
+                    withSnapshot(snapshot -> performAutoAnswer(snapshot, notificationTime));
                 }, 1500);
                 break;
             }
@@ -224,154 +322,168 @@ public class WeChatAccessibilityService extends AccessibilityService {
     }
     
     /**
-     * 检查是否有接听按钮（独立方法，可被周期性调用）
+     * 检查是否有接听按钮（独立方法，由来电探测调用）
+     * @param eventTime 来电信号出现的时间（uptimeMillis），用于统计事件到接听的耗时
+     * @return 找到并处理了接听按钮时返回 true
      */
-    private void checkForAnswerButton() {
-        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+    private boolean checkForAnswerButton(UiSnapshot snapshot, long eventTime) {
+        AccessibilityNodeInfo rootNode = snapshot.getRoot();
         if (rootNode == null) {
-            return;
+            return false;
         }
         
-        try {
-            // 方法1: 快速检查是否有接听按钮文本
-            List<AccessibilityNodeInfo> answerButtons = rootNode.findAccessibilityNodeInfosByText("接听");
-            if (!answerButtons.isEmpty()) {
-                Log.i(TAG, "发现接听按钮，立即处理");
-                LogManager.log("✓ 发现接听按钮！");
-                performAutoAnswer();
-                return;
-            }
-            
-            // 方法2: 查找其他可能的文本
-            List<AccessibilityNodeInfo> acceptButtons = rootNode.findAccessibilityNodeInfosByText("接受");
-            if (!acceptButtons.isEmpty()) {
-                LogManager.log("✓ 发现接受按钮！");
-                performAutoAnswer();
-                return;
-            }
-            
-            // 方法3: 查找包含"接"字的任何文本
-            List<AccessibilityNodeInfo> jiButtons = rootNode.findAccessibilityNodeInfosByText("接");
-            if (!jiButtons.isEmpty()) {
-                Log.i(TAG, "发现包含'接'的按钮: " + jiButtons.size() + "个");
-                for (AccessibilityNodeInfo btn : jiButtons) {
-                    CharSequence text = btn.getText();
-                    if (text != null && (text.toString().contains("接听") || text.toString().equals("接"))) {
-                        LogManager.log("✓ 发现'接'按钮！");
-                        performAutoAnswer();
-                        return;
-                    }
+        // 方法1: 快速检查是否有接听按钮文本
+        List<AccessibilityNodeInfo> answerButtons = snapshot.findByText("接听");
+        if (!answerButtons.isEmpty()) {
+            Log.i(TAG, "发现接听按钮，立即处理");
+            LogManager.log("✓ 发现接听按钮！");
+            return performAutoAnswer(snapshot, eventTime);
+        }
+        
+        // 方法2: 查找其他可能的文本
+        List<AccessibilityNodeInfo> acceptButtons = snapshot.findByText("接受");
+        if (!acceptButtons.isEmpty()) {
+            LogManager.log("✓ 发现接受按钮！");
+            return performAutoAnswer(snapshot, eventTime);
+        }
+        
+        // 方法3: 查找包含"接"字的任何文本
+        List<AccessibilityNodeInfo> jiButtons = snapshot.findByText("接");
+        if (!jiButtons.isEmpty()) {
+            Log.i(TAG, "发现包含'接'的按钮: " + jiButtons.size() + "个");
+            for (AccessibilityNodeInfo btn : jiButtons) {
+                CharSequence text = btn.getText();
+                if (text != null && (text.toString().contains("接听") || text.toString().equals("接"))) {
+                    LogManager.log("✓ 发现'接'按钮！");
+                    return performAutoAnswer(snapshot, eventTime);
                 }
             }
-            
-            // 方法4: 扫描屏幕下半部分的大按钮（可能是接听按钮）
-            List<AccessibilityNodeInfo> allButtons = findAllClickableButtons(rootNode);
-            if (!allButtons.isEmpty()) {
-                android.graphics.Rect screenBounds = new android.graphics.Rect();
-                rootNode.getBoundsInScreen(screenBounds);
-                int screenHeight = screenBounds.height();
-                int screenWidth = screenBounds.width();
+        }
+        
+        // 方法4: 扫描屏幕下半部分的大按钮（可能是接听按钮），只遍历下方中间区域的子树
+        android.graphics.Rect screenBounds = new android.graphics.Rect();
+        rootNode.getBoundsInScreen(screenBounds);
+        int screenHeight = screenBounds.height();
+        int screenWidth = screenBounds.width();
+        android.graphics.Rect answerRegion = new android.graphics.Rect(
+            (int) (screenWidth * 0.3), screenHeight / 2, (int) (screenWidth * 0.7), screenHeight);
+        
+        List<AccessibilityNodeInfo> allButtons = findAllClickableButtons(snapshot, answerRegion);
+        if (!allButtons.isEmpty()) {
+            for (AccessibilityNodeInfo button : allButtons) {
+                android.graphics.Rect bounds = new android.graphics.Rect();
+                button.getBoundsInScreen(bounds);
                 
-                for (AccessibilityNodeInfo button : allButtons) {
-                    android.graphics.Rect bounds = new android.graphics.Rect();
-                    button.getBoundsInScreen(bounds);
-                    
-                    int buttonCenterY = (bounds.top + bounds.bottom) / 2;
-                    int buttonCenterX = (bounds.left + bounds.right) / 2;
-                    int buttonWidth = bounds.width();
-                    int buttonHeight = bounds.height();
-                    
-                    // 在屏幕下半部分、居中、足够大的按钮
-                    boolean inBottomHalf = buttonCenterY > screenHeight * 0.5;
-                    boolean horizontallyCentered = buttonCenterX > screenWidth * 0.3 && 
-                                                   buttonCenterX < screenWidth * 0.7;
-                    boolean largeEnough = buttonWidth > 100 && buttonHeight > 100;
+                int buttonCenterY = (bounds.top + bounds.bottom) / 2;
+                int buttonCenterX = (bounds.left + bounds.right) / 2;
+                int buttonWidth = bounds.width();
+                int buttonHeight = bounds.height();
+                
+                // 在屏幕下半部分、居中、足够大的按钮
+                boolean inBottomHalf = buttonCenterY > screenHeight * 0.5;
+                boolean horizontallyCentered = buttonCenterX > screenWidth * 0.3 && 
+                                               buttonCenterX < screenWidth * 0.7;
+                boolean largeEnough = buttonWidth > 100 && buttonHeight > 100;
+                
+                if (inBottomHalf && horizontallyCentered && largeEnough) {
+                    CharSequence text = button.getText();
+                    CharSequence desc = button.getContentDescription();
                     
-                    if (inBottomHalf && horizontallyCentered && largeEnough) {
-                        CharSequence text = button.getText();
-                        CharSequence desc = button.getContentDescription();
-                        
-                        // 如果没有文本或描述，可能就是接听按钮（通常是图标按钮）
-                        if ((text == null || text.length() == 0) && (desc == null || desc.length() == 0)) {
-                            Log.i(TAG, "发现可疑的大按钮（无文本）在屏幕下方中间");
-                            LogManager.log("→ 发现可疑按钮，尝试点击");
-                            if (tryClickNode(button, "可疑大按钮")) {
-                                return;
-                            }
-                        }
+                    // 如果没有文本或描述，可能就是接听按钮（通常是图标按钮）
+                    if ((text == null || text.length() == 0) && (desc == null || desc.length() == 0)) {
+                        Log.i(TAG, "发现可疑的大按钮（无文本）在屏幕下方中间");
+                        LogManager.log("→ 发现可疑按钮，尝试接听");
+                        // 交给点击引擎逐个点击并确认，不直接点击未经确认的按钮
+                        return performAutoAnswer(snapshot, eventTime);
                     }
                 }
             }
-            
-        } finally {
-            rootNode.recycle();
         }
+        
+        return false;
     }
     
     /**
      * 自动接听视频通话 - 增强版
+     * 按各种方式收集接听按钮候选，交给点击引擎逐个点击并确认，确认接通后立即停止
+     * @param eventTime 触发这次接听的事件时间（uptimeMillis），用于统计事件到接听的耗时
+     * @return 开始了一轮接听点击时返回 true；已有一轮正在进行时返回 false，
+     *         来电探测不会因此停止，这一轮没有接通时还能再试
      */
-    private void performAutoAnswer() {
+    private boolean performAutoAnswer(UiSnapshot snapshot, long eventTime) {
+        if (answerClickEngine.isRunning()) {
+            LogManager.log("接听点击进行中，跳过");
+            return false;
+        }
+        
         LogManager.log("→ 开始查找接听按钮");
+        answerEventTime = eventTime;
         
-        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
+        AccessibilityNodeInfo rootNode = snapshot.getRoot();
         if (rootNode == null) {
             Log.w(TAG, "无法获取根节点");
             LogManager.log("✗ 无法获取根节点");
-            return;
+            return false;
         }
         
+        List<AnswerTarget> targets = new java.util.ArrayList<>();
         try {
             Log.i(TAG, "开始查找接听按钮...");
             
+            // 获取屏幕尺寸
+            android.graphics.Rect screenBounds = new android.graphics.Rect();
+            rootNode.getBoundsInScreen(screenBounds);
+            int screenHeight = screenBounds.height();
+            int screenWidth = screenBounds.width();
+            
             // 方法1: 通过文本查找 "接听"
             LogManager.log("方法1: 查找文本'接听'");
-            List<AccessibilityNodeInfo> answerButtons = rootNode.findAccessibilityNodeInfosByText("接听");
+            long locateStart = MetricsRegistry.now();
+            List<AccessibilityNodeInfo> answerButtons = snapshot.findByText("接听");
+            long textMicros = MetricsRegistry.microsSince(locateStart);
+            
+            // 方法2: 通过 View ID 查找
+            String answerViewId = null;
+            AccessibilityNodeInfo viewIdButton = null;
+            locateStart = MetricsRegistry.now();
+            for (String viewId : ANSWER_VIEW_IDS) {
+                List<AccessibilityNodeInfo> buttons = snapshot.findByViewId(viewId);
+                if (!buttons.isEmpty()) {
+                    answerViewId = viewId;
+                    viewIdButton = buttons.get(0);
+                    break;
+                }
+            }
+            long viewIdMicros = MetricsRegistry.microsSince(locateStart);
+            
+            // 确实检测到来电（接听文本、接听按钮 ID 或通话窗口）时才允许按坐标点击（缓存坐标、盲点）
+            // 和截图识别，避免在普通界面上乱点
+            boolean callDetected = !answerButtons.isEmpty() || viewIdButton != null
+                || isCallWindowClass(lastWindowClassName);
+            
+            // 优先按上次成功的方式查找
+            String locatorKey = AnswerLocatorCache.buildKey(lastWindowClassName, screenWidth, screenHeight);
+            AnswerLocatorCache.Entry cached = locatorCache.lookup(locatorKey);
+            boolean fromCache = addCachedTarget(snapshot, locatorKey, cached, callDetected, targets);
+            
             if (!answerButtons.isEmpty()) {
                 Log.i(TAG, "找到接听按钮（文本）: " + answerButtons.size() + " 个");
                 LogManager.log("✓ 找到 " + answerButtons.size() + " 个接听按钮");
-                for (AccessibilityNodeInfo button : answerButtons) {
-                    if (tryClickNode(button, "接听按钮")) {
-                        LogManager.log("✓✓✓ 成功点击接听按钮！");
-                        return;
-                    }
-                }
+                addLocatedTarget(targets, AnswerLocatorCache.STRATEGY_TEXT, null, answerButtons.get(0), textMicros);
             } else {
                 LogManager.log("✗ 未找到文本'接听'");
             }
             
-            // 方法2: 通过 View ID 查找
-            String[] viewIds = {
-                "com.tencent.mm:id/accept_btn",
-                "com.tencent.mm:id/btn_accept",
-                "com.tencent.mm:id/voip_accept_btn",
-                "com.tencent.mm:id/video_accept_btn",
-                "com.tencent.mm:id/answer_btn",
-                "com.tencent.mm:id/btn_answer"
-            };
-            
-            for (String viewId : viewIds) {
-                List<AccessibilityNodeInfo> buttons = rootNode.findAccessibilityNodeInfosByViewId(viewId);
-                if (!buttons.isEmpty()) {
-                    Log.i(TAG, "找到接听按钮（ID: " + viewId + "）");
-                    for (AccessibilityNodeInfo button : buttons) {
-                        if (tryClickNode(button, "ID按钮")) {
-                            return;
-                        }
-                    }
-                }
+            if (viewIdButton != null) {
+                Log.i(TAG, "找到接听按钮（ID: " + answerViewId + "）");
+                addLocatedTarget(targets, AnswerLocatorCache.STRATEGY_VIEW_ID, answerViewId, viewIdButton,
+                    viewIdMicros);
             }
             
             // 方法3: 智能查找 - 通过位置和大小判断（绿色按钮通常在屏幕下方中间）
-            List<AccessibilityNodeInfo> allButtons = findAllClickableButtons(rootNode);
+            locateStart = MetricsRegistry.now();
+            List<AccessibilityNodeInfo> allButtons = findAllClickableButtons(snapshot, null);
             Log.i(TAG, "找到所有可点击按钮: " + allButtons.size() + " 个");
-            
-            // 获取屏幕尺寸
-            android.graphics.Rect screenBounds = new android.graphics.Rect();
-            rootNode.getBoundsInScreen(screenBounds);
-            int screenHeight = screenBounds.height();
-            int screenWidth = screenBounds.width();
-            
             Log.i(TAG, "屏幕尺寸: " + screenWidth + "x" + screenHeight);
             
             // 查找位于屏幕下半部分、居中的大按钮（很可能是接听按钮）
@@ -401,13 +513,14 @@ public class WeChatAccessibilityService extends AccessibilityService {
                     Log.i(TAG, String.format("找到可能的接听按钮 - 位置: (%d,%d), 大小: %dx%d, 文本: %s, 描述: %s, 类: %s",
                         buttonCenterX, buttonCenterY, buttonWidth, buttonHeight, text, desc, className));
                     
-                    if (tryClickNode(button, "位置判断按钮")) {
-                        return;
-                    }
+                    addLocatedTarget(targets, AnswerLocatorCache.STRATEGY_GEOMETRY, null, button,
+                        MetricsRegistry.microsSince(locateStart));
+                    break;
                 }
             }
             
-            // 方法4: 查找包含"接"字或相关关键词的按钮
+            // 方法4: 查找包含"接"字或相关关键词的按钮（复用方法3收集的可点击节点）
+            locateStart = MetricsRegistry.now();
             for (AccessibilityNodeInfo button : allButtons) {
                 CharSequence text = button.getText();
                 CharSequence desc = button.getContentDescription();
@@ -419,38 +532,254 @@ public class WeChatAccessibilityService extends AccessibilityService {
                     textStr.contains("Accept") || descStr.contains("Accept")) {
                     
                     Log.i(TAG, "找到可能的接听按钮（关键词）: " + textStr + " / " + descStr);
-                    if (tryClickNode(button, "关键词按钮")) {
-                        return;
-                    }
+                    addLocatedTarget(targets, AnswerLocatorCache.STRATEGY_KEYWORD, null, button,
+                        MetricsRegistry.microsSince(locateStart));
+                    break;
                 }
             }
             
             // 方法5: 最后尝试 - 点击屏幕下方中间位置（绿色按钮的常见位置）
-            Log.i(TAG, "尝试点击屏幕下方中间位置...");
-            int clickX = screenWidth / 2;
-            int clickY = (int)(screenHeight * 0.75); // 屏幕 75% 高度位置
+            if (callDetected) {
+                int clickX = screenWidth / 2;
+                int clickY = (int)(screenHeight * 0.75); // 屏幕 75% 高度位置
+                addTarget(targets, new AnswerTarget(AnswerLocatorCache.STRATEGY_BLIND_TAP, null, null,
+                    new android.graphics.Rect(clickX, clickY, clickX, clickY)));
+            }
+            
+            if (targets.isEmpty()) {
+                LogManager.log("✗ 未检测到来电，没有可点击的候选");
+                return false;
+            }
+            
+            startAnswerClicks(targets, new AnswerScreenState(snapshot), locatorKey, fromCache, callDetected);
+            return true;
             
-            if (performGlobalClick(clickX, clickY)) {
-                Log.i(TAG, "✓ 已点击屏幕位置: (" + clickX + ", " + clickY + ")");
+        } catch (Exception e) {
+            Log.e(TAG, "自动接听异常: " + e.getMessage());
+            e.printStackTrace();
+            recycleTargets(targets);
+            return false;
+        }
+    }
+    
+    /**
+     * 接听按钮候选
+     */
+    private static class AnswerTarget {
+        final String strategy;
+        final String viewId;
+        // AccessibilityNodeInfo.obtain() 得到的副本，点击结束后回收；坐标候选为 null
+        final AccessibilityNodeInfo node;
+        final android.graphics.Rect bounds;
+        
+        AnswerTarget(String strategy, String viewId, AccessibilityNodeInfo node, android.graphics.Rect bounds) {
+            this.strategy = strategy;
+            this.viewId = viewId;
+            this.node = node;
+            this.bounds = bounds;
+        }
+    }
+    
+    /**
+     * 把缓存的定位方式加入候选（放在最前面）；缓存的 View ID 已经找不到时记一次未命中，
+     * 只有坐标的缓存（盲点、截图、位置）在没有检测到来电时不使用
+     */
+    private boolean addCachedTarget(UiSnapshot snapshot, String locatorKey, AnswerLocatorCache.Entry entry,
+                                    boolean callDetected, List<AnswerTarget> targets) {
+        // 文本查找本来就是第一步，不需要走缓存
+        if (entry == null || AnswerLocatorCache.STRATEGY_TEXT.equals(entry.strategy)) {
+            return false;
+        }
+        if (entry.viewId == null && !callDetected) {
+            LogManager.log("未检测到来电，跳过缓存坐标: " + entry.strategy);
+            return false;
+        }
+        
+        LogManager.log("→ 按缓存定位: " + entry.strategy);
+        if (entry.viewId != null) {
+            List<AccessibilityNodeInfo> buttons = snapshot.findByViewId(entry.viewId);
+            if (buttons.isEmpty()) {
+                locatorCache.recordMiss(locatorKey);
+                return false;
+            }
+            addTarget(targets, entry.strategy, entry.viewId, buttons.get(0));
+        } else {
+            addTarget(targets, new AnswerTarget(entry.strategy, null, null,
+                new android.graphics.Rect(entry.left, entry.top, entry.right, entry.bottom)));
+        }
+        return true;
+    }
+    
+    /**
+     * 加入按某种方式定位到的候选，被接受时记录这种方式本次查找的耗时（微秒）
+     */
+    private void addLocatedTarget(List<AnswerTarget> targets, String strategy, String viewId,
+                                  AccessibilityNodeInfo node, long locateMicros) {
+        if (addTarget(targets, strategy, viewId, node)) {
+            MetricsRegistry.record(MetricsRegistry.Metric.forStrategy(strategy), locateMicros);
+        }
+    }
+    
+    private boolean addTarget(List<AnswerTarget> targets, String strategy, String viewId, AccessibilityNodeInfo node) {
+        android.graphics.Rect bounds = new android.graphics.Rect();
+        node.getBoundsInScreen(bounds);
+        return addTarget(targets, new AnswerTarget(strategy, viewId, AccessibilityNodeInfo.obtain(node), bounds));
+    }
+    
+    /**
+     * 加入候选；和已有候选中心重合或数量已满时不加入并回收节点副本
+     * @return 是否加入了候选
+     */
+    private boolean addTarget(List<AnswerTarget> targets, AnswerTarget target) {
+        int x = target.bounds.centerX();
+        int y = target.bounds.centerY();
+        boolean duplicate = targets.size() >= MAX_ANSWER_ATTEMPTS;
+        for (AnswerTarget existing : targets) {
+            if (Math.abs(existing.bounds.centerX() - x) <= DUPLICATE_TARGET_RADIUS
+                    && Math.abs(existing.bounds.centerY() - y) <= DUPLICATE_TARGET_RADIUS) {
+                duplicate = true;
+                break;
+            }
+        }
+        if (duplicate) {
+            if (target.node != null) {
+                target.node.recycle();
+            }
+            return false;
+        }
+        targets.add(target);
+        return true;
+    }
+    
+    private static void recycleTargets(List<AnswerTarget> targets) {
+        for (AnswerTarget target : targets) {
+            if (target.node != null) {
+                target.node.recycle();
+            }
+        }
+        targets.clear();
+    }
+    
+    /**
+     * 逐个点击候选，每次点击后确认来电界面是否已经变化
+     */
+    private void startAnswerClicks(List<AnswerTarget> targets, AnswerScreenState baseline, String locatorKey,
+                                   boolean fromCache, boolean callDetected) {
+        List<VerifiedClickEngine.Attempt> attempts = new java.util.ArrayList<>();
+        for (AnswerTarget target : targets) {
+            attempts.add(() -> clickTarget(target));
+        }
+        
+        LogManager.log("→ 接听候选 " + targets.size() + " 个，开始点击");
+        answerClickEngine.run(attempts, () -> isAnswerScreenChanged(baseline)).thenAccept(result -> {
+            LogManager.log((result.confirmed ? "✓✓✓ 接听成功: " : "✗ 接听未确认: ") + result);
+            recordAnswerResult(result);
+            if (result.confirmed) {
+                callProbeScheduler.markResolved();
+                AnswerTarget target = targets.get(result.confirmedIndex);
+                locatorCache.recordHit(locatorKey, target.strategy, target.viewId, target.bounds);
+                recycleTargets(targets);
+                return;
+            }
+            
+            recycleTargets(targets);
+            if (fromCache) {
+                locatorCache.recordMiss(locatorKey);
+            }
+            if (!callDetected) {
                 return;
             }
             
             Log.w(TAG, "所有方法都失败，尝试截图识别...");
             // 打印界面信息用于调试
-            printNodeInfo(rootNode, 0);
+            withSnapshot(snapshot -> printNodeInfo(snapshot.getRoot()));
             
             // 最后尝试：截图识别绿色按钮（Android 11+）
             if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.R) {
-                handler.postDelayed(() -> takeScreenshotAndFindGreenButton(), 500);
+                takeScreenshotAndFindGreenButton(locatorKey, baseline);
             } else {
                 Log.w(TAG, "截图功能需要 Android 11+，当前版本: " + android.os.Build.VERSION.SDK_INT);
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "自动接听异常: " + e.getMessage());
-            e.printStackTrace();
+        }).exceptionally(e -> {
+            LogManager.log("✗ 接听点击异常: " + e.getMessage());
+            recycleTargets(targets);
+            return null;
+        });
+    }
+    
+    /**
+     * 记录一轮接听点击的耗时和结果
+     */
+    private void recordAnswerResult(VerifiedClickEngine.ClickResult result) {
+        if (result.confirmed) {
+            MetricsRegistry.recordMillis(MetricsRegistry.Metric.ANSWER_CONFIRM, result.latencyMs);
+            MetricsRegistry.recordMillis(MetricsRegistry.Metric.TIME_TO_ANSWER,
+                android.os.SystemClock.uptimeMillis() - answerEventTime);
+            MetricsRegistry.increment(MetricsRegistry.Counter.ANSWER_CONFIRMED);
+        } else {
+            MetricsRegistry.increment(MetricsRegistry.Counter.ANSWER_UNCONFIRMED);
+        }
+    }
+    
+    /**
+     * 点击一个候选：坐标手势被拒绝时改为直接点击节点
+     */
+    private CompletableFuture<GestureDispatcher.GestureOutcome> clickTarget(AnswerTarget target) {
+        int x = target.bounds.centerX();
+        int y = target.bounds.centerY();
+        LogManager.log("点击候选(" + target.strategy + "): (" + x + "," + y + ")");
+        
+        CompletableFuture<GestureDispatcher.GestureOutcome> future = gestureDispatcher.tap(x, y, 200);
+        if (!GestureDispatcher.wasRejected(future) || target.node == null) {
+            return future;
+        }
+        
+        boolean clicked = target.node.isClickable() && target.node.performAction(AccessibilityNodeInfo.ACTION_CLICK);
+        LogManager.log("节点点击: " + (clicked ? "成功" : "失败"));
+        return CompletableFuture.completedFuture(new GestureDispatcher.GestureOutcome(
+            clicked ? GestureDispatcher.Status.COMPLETED : GestureDispatcher.Status.REJECTED, 1, 0, x, y));
+    }
+    
+    /**
+     * 来电界面状态：窗口类名、接听文本和各接听按钮 ID 是否存在
+     * 不记录按钮位置，界面重新布局不会被误当成已接通
+     */
+    private class AnswerScreenState {
+        final String windowClassName;
+        final boolean hasAnswerText;
+        final java.util.Set<String> viewIds = new java.util.HashSet<>();
+        
+        AnswerScreenState(UiSnapshot snapshot) {
+            windowClassName = lastWindowClassName;
+            hasAnswerText = snapshot.getRoot() != null && !snapshot.findByText("接听").isEmpty();
+            if (snapshot.getRoot() != null) {
+                for (String viewId : ANSWER_VIEW_IDS) {
+                    if (!snapshot.findByViewId(viewId).isEmpty()) {
+                        viewIds.add(viewId);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * 与点击前相比：窗口切换，或原有的接听文本、接听按钮 ID 消失
+         */
+        boolean isAnsweredComparedTo(AnswerScreenState baseline) {
+            if (!windowClassName.equals(baseline.windowClassName)) return true;
+            if (baseline.hasAnswerText && !hasAnswerText) return true;
+            return !baseline.viewIds.isEmpty() && !viewIds.containsAll(baseline.viewIds);
+        }
+    }
+    
+    /**
+     * 与点击前相比来电界面是否已经变化（接听按钮消失、窗口切换等）
+     */
+    private boolean isAnswerScreenChanged(AnswerScreenState baseline) {
+        UiSnapshot snapshot = new UiSnapshot(this);
+        try {
+            return new AnswerScreenState(snapshot).isAnsweredComparedTo(baseline);
         } finally {
-            rootNode.recycle();
+            snapshot.recycle();
         }
     }
     
@@ -471,13 +800,6 @@ public class WeChatAccessibilityService extends AccessibilityService {
         LogManager.log("按钮位置: (" + centerX + "," + centerY + ")");
         LogManager.log("按钮大小: " + bounds.width() + "x" + bounds.height());
         
-        // 等待一小段时间确保界面稳定
-        try {
-            Thread.sleep(100);
-        } catch (InterruptedException e) {
-            // 忽略
-        }
-        
         // 优先使用坐标点击（更可靠）
         if (performGlobalClick(centerX, centerY)) {
             Log.i(TAG, "✓ 通过坐标点击" + source + ": (" + centerX + ", " + centerY + ")");
@@ -500,6 +822,7 @@ public class WeChatAccessibilityService extends AccessibilityService {
         if (parent != null) {
             android.graphics.Rect parentBounds = new android.graphics.Rect();
             parent.getBoundsInScreen(parentBounds);
+            parent.recycle();
             int parentX = (parentBounds.left + parentBounds.right) / 2;
             int parentY = (parentBounds.top + parentBounds.bottom) / 2;
             
@@ -516,118 +839,32 @@ public class WeChatAccessibilityService extends AccessibilityService {
     
     /**
      * 通过全局坐标点击（需要 Android 7.0+）- 增强版
+     * 依次尝试多组手势参数，不阻塞当前线程；有手势被系统接受即返回 true，
+     * 最终结果在回调中处理，全部失败时再走备用点击
      */
     private boolean performGlobalClick(int x, int y) {
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
-            try {
-                LogManager.log("准备执行增强手势点击: (" + x + "," + y + ")");
-                
-                // 等待界面完全稳定
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) {
-                    // 忽略
-                }
-                
-                // 尝试多种手势参数组合
-                int[][] gestureParams = {
-                    {x, y, 200},        // 标准点击200ms
-                    {x, y, 400},        // 长按400ms  
-                    {x, y, 100},        // 快速点击100ms
-                    {x-2, y-2, 300},    // 稍微偏移点击
-                    {x+2, y+2, 300}     // 稍微偏移点击
-                };
-                
-                for (int i = 0; i < gestureParams.length; i++) {
-                    final int attempt = i + 1;
-                    int clickX = gestureParams[i][0];
-                    int clickY = gestureParams[i][1];
-                    int duration = gestureParams[i][2];
-                    
-                    LogManager.log("尝试手势 " + attempt + "/5: (" + clickX + "," + clickY + ") 时长=" + duration + "ms");
-                    
-                    android.graphics.Path path = new android.graphics.Path();
-                    path.moveTo(clickX, clickY);
-                    
-                    android.accessibilityservice.GestureDescription.StrokeDescription stroke = 
-                        new android.accessibilityservice.GestureDescription.StrokeDescription(path, 0, duration);
-                    
-                    android.accessibilityservice.GestureDescription gesture = 
-                        new android.accessibilityservice.GestureDescription.Builder()
-                            .addStroke(stroke)
-                            .build();
-                    
-                    final boolean[] gestureCompleted = {false};
-                    final boolean[] gestureSucceeded = {false};
-                    
-                    boolean result = dispatchGesture(gesture, new android.accessibilityservice.AccessibilityService.GestureResultCallback() {
-                        @Override
-                        public void onCompleted(android.accessibilityservice.GestureDescription gestureDescription) {
-                            super.onCompleted(gestureDescription);
-                            gestureCompleted[0] = true;
-                            gestureSucceeded[0] = true;
-                            LogManager.log("✓ 手势 " + attempt + " 执行完成");
-                        }
-                        
-                        @Override
-                        public void onCancelled(android.accessibilityservice.GestureDescription gestureDescription) {
-                            super.onCancelled(gestureDescription);
-                            gestureCompleted[0] = true;
-                            gestureSucceeded[0] = false;
-                            LogManager.log("✗ 手势 " + attempt + " 被取消");
-                        }
-                    }, null);
-                    
-                    LogManager.log("手势 " + attempt + " 分发结果: " + result);
-                    
-                    if (result) {
-                        // 等待手势完成
-                        int waitCount = 0;
-                        while (!gestureCompleted[0] && waitCount < 20) { // 最多等待2秒
-                            try {
-                                Thread.sleep(100);
-                            } catch (InterruptedException e) {
-                                break;
-                            }
-                            waitCount++;
-                        }
-                        
-                        if (gestureSucceeded[0]) {
-                            LogManager.log("✓✓✓ 手势点击成功！");
-                            
-                            // 成功后短暂等待，然后再次确认点击
-                            handler.postDelayed(() -> {
-                                LogManager.log("执行确认点击");
-                                performSimpleClick(x, y);
-                            }, 500);
-                            
-                            return true;
-                        }
-                    }
-                    
-                    // 每次尝试之间等待
-                    if (i < gestureParams.length - 1) {
-                        try {
-                            Thread.sleep(200);
-                        } catch (InterruptedException e) {
-                            break;
-                        }
-                    }
-                }
-                
-                LogManager.log("所有手势尝试失败，使用备用方法");
-                return performBackupClick(x, y);
-                
-            } catch (Exception e) {
-                Log.e(TAG, "增强手势点击失败: " + e.getMessage());
-                LogManager.log("✗ 增强手势点击异常: " + e.getMessage());
-                e.printStackTrace();
-                return performBackupClick(x, y);
-            }
-        } else {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
             LogManager.log("✗ Android 版本过低，不支持手势点击");
             return false;
         }
+        
+        LogManager.log("准备执行增强手势点击: (" + x + "," + y + ")");
+        CompletableFuture<GestureDispatcher.GestureOutcome> future =
+            gestureDispatcher.tapWithRetries(x, y, GestureDispatcher.DEFAULT_VARIANTS);
+        if (GestureDispatcher.wasRejected(future)) {
+            LogManager.log("手势分发全部被拒绝，使用备用方法");
+            return performBackupClick(x, y);
+        }
+        
+        future.thenAccept(outcome -> {
+            if (outcome.isCompleted()) {
+                LogManager.log("✓✓✓ 手势点击成功: " + outcome);
+            } else {
+                LogManager.log("所有手势尝试失败: " + outcome + "，使用备用方法");
+                performBackupClick(x, y);
+            }
+        });
+        return true;
     }
     
     /**
@@ -642,157 +879,108 @@ public class WeChatAccessibilityService extends AccessibilityService {
             return true;
         }
         
-        // 方法2: 尝试多次短手势点击
-        try {
-            for (int i = 0; i < 5; i++) {
-                final int attemptNumber = i + 1; // Create a final copy for use in inner class
-                android.graphics.Path path = new android.graphics.Path();
-                path.moveTo(x, y);
-                
-                // 尝试不同的点击时长
-                int duration = attemptNumber * 100; // 100ms, 200ms, 300ms, 400ms, 500ms
-                android.accessibilityservice.GestureDescription.StrokeDescription stroke = 
-                    new android.accessibilityservice.GestureDescription.StrokeDescription(path, 0, duration);
-                
-                android.accessibilityservice.GestureDescription gesture = 
-                    new android.accessibilityservice.GestureDescription.Builder()
-                        .addStroke(stroke)
-                        .build();
-                
-                boolean result = dispatchGesture(gesture, new android.accessibilityservice.AccessibilityService.GestureResultCallback() {
-                    @Override
-                    public void onCompleted(android.accessibilityservice.GestureDescription gestureDescription) {
-                        LogManager.log("✓ 备用手势 " + attemptNumber + " 完成");
-                    }
-                    
-                    @Override
-                    public void onCancelled(android.accessibilityservice.GestureDescription gestureDescription) {
-                        LogManager.log("✗ 备用手势 " + attemptNumber + " 取消");
-                    }
-                }, null);
-                
-                LogManager.log("备用点击 " + attemptNumber + "/5 (时长" + duration + "ms): " + result);
-                
-                if (result) {
-                    Thread.sleep(300); // 等待较长时间
-                }
-            }
-            
-            return true;
-        } catch (Exception e) {
-            Log.e(TAG, "备用点击失败: " + e.getMessage());
-            LogManager.log("✗ 备用点击失败: " + e.getMessage());
-            return false;
-        }
+        // 方法2: 依次尝试不同按下时长的手势，直到有一次完成
+        CompletableFuture<GestureDispatcher.GestureOutcome> future =
+            gestureDispatcher.tapWithRetries(x, y, BACKUP_GESTURE_VARIANTS);
+        future.thenAccept(outcome ->
+            LogManager.log((outcome.isCompleted() ? "✓ 备用手势完成: " : "✗ 备用手势失败: ") + outcome));
+        return !GestureDispatcher.wasRejected(future);
     }
     
     /**
      * 尝试使用Shell命令点击（需要root权限）
      */
     private boolean tryShellClick(int x, int y) {
-        try {
-            LogManager.log("尝试Shell命令点击: (" + x + "," + y + ")");
-            
-            // 方法1: 使用input tap命令
-            String[] commands = {
-                "su", "-c", "input tap " + x + " " + y
-            };
-            
-            Process process = Runtime.getRuntime().exec(commands);
-            int exitCode = process.waitFor();
-            
-            if (exitCode == 0) {
-                LogManager.log("✓ Shell tap命令执行成功");
-                return true;
-            } else {
-                LogManager.log("✗ Shell tap命令失败，退出码: " + exitCode);
-            }
-            
-            // 方法2: 使用sendevent命令（更底层）
-            String[] touchCommands = {
-                "su", "-c", String.format(
-                    "sendevent /dev/input/event0 3 57 0 && " +
-                    "sendevent /dev/input/event0 3 53 %d && " +
-                    "sendevent /dev/input/event0 3 54 %d && " +
-                    "sendevent /dev/input/event0 0 0 0 && " +
-                    "sendevent /dev/input/event0 3 57 -1 && " +
-                    "sendevent /dev/input/event0 0 0 0", x, y)
-            };
-            
-            Process touchProcess = Runtime.getRuntime().exec(touchCommands);
-            int touchExitCode = touchProcess.waitFor();
-            
-            if (touchExitCode == 0) {
-                LogManager.log("✓ Shell sendevent命令执行成功");
-                return true;
-            } else {
-                LogManager.log("✗ Shell sendevent命令失败，退出码: " + touchExitCode);
-            }
-            
-        } catch (Exception e) {
-            LogManager.log("✗ Shell点击异常: " + e.getMessage());
+        // 没有 root，或后台仍在启动检测时直接跳过
+        if (!rootShell.isAvailable()) {
+            return false;
         }
         
+        LogManager.log("尝试Shell命令点击: (" + x + "," + y + ")");
+        
+        // 方法1: 使用input tap命令
+        int exitCode = rootShell.exec("input tap " + x + " " + y);
+        if (exitCode == 0) {
+            LogManager.log("✓ Shell tap命令执行成功");
+            return true;
+        }
+        LogManager.log("✗ Shell tap命令失败，退出码: " + exitCode);
+        if (!rootShell.isAvailable()) {
+            return false;
+        }
+        
+        // 方法2: 使用sendevent命令（更底层）
+        int touchExitCode = rootShell.exec(String.format(
+            "sendevent /dev/input/event0 3 57 0 && " +
+            "sendevent /dev/input/event0 3 53 %d && " +
+            "sendevent /dev/input/event0 3 54 %d && " +
+            "sendevent /dev/input/event0 0 0 0 && " +
+            "sendevent /dev/input/event0 3 57 -1 && " +
+            "sendevent /dev/input/event0 0 0 0", x, y));
+        if (touchExitCode == 0) {
+            LogManager.log("✓ Shell sendevent命令执行成功");
+            return true;
+        }
+        LogManager.log("✗ Shell sendevent命令失败，退出码: " + touchExitCode);
+        
         return false;
     }
     
     /**
      * 查找所有可点击的按钮
+     * 返回的节点登记在快照中，随快照回收
+     *
+     * @param region 只查找与该区域相交的子树，为 null 时查找整棵树
      */
-    private List<AccessibilityNodeInfo> findAllClickableButtons(AccessibilityNodeInfo node) {
+    private List<AccessibilityNodeInfo> findAllClickableButtons(UiSnapshot snapshot, android.graphics.Rect region) {
         List<AccessibilityNodeInfo> buttons = new java.util.ArrayList<>();
-        if (node == null) return buttons;
-        
-        String className = node.getClassName() != null ? node.getClassName().toString() : "";
         
-        // 只收集按钮类型的节点
-        if (node.isClickable() && (
-            className.contains("Button") || 
-            className.contains("ImageView") ||
-            className.contains("TextView"))) {
-            buttons.add(node);
-        }
-        
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                buttons.addAll(findAllClickableButtons(child));
+        treeWalker.walk(snapshot.getRoot(), region, (node, depth) -> {
+            // 先判断是否可点击，只对可点击节点读取类名
+            if (node.isClickable() && isButtonClass(node.getClassName())) {
+                buttons.add(snapshot.track(AccessibilityNodeInfo.obtain(node)));
             }
-        }
+            return NodeTreeWalker.CONTINUE;
+        });
         
         return buttons;
     }
     
+    /**
+     * 只收集按钮类型的节点
+     */
+    private static boolean isButtonClass(CharSequence className) {
+        if (className == null) return false;
+        String name = className.toString();
+        return name.contains("Button") || name.contains("ImageView") || name.contains("TextView");
+    }
+    
     /**
      * 打印节点信息（用于调试）
      */
-    private void printNodeInfo(AccessibilityNodeInfo node, int depth) {
-        if (node == null || depth > 3) return; // 限制深度避免日志过多
-        
-        String indent = new String(new char[depth * 2]).replace('\0', ' ');
-        String text = node.getText() != null ? node.getText().toString() : "";
-        String desc = node.getContentDescription() != null ? node.getContentDescription().toString() : "";
-        String viewId = node.getViewIdResourceName() != null ? node.getViewIdResourceName() : "";
-        
-        if (!text.isEmpty() || !desc.isEmpty() || !viewId.isEmpty()) {
-            Log.d(TAG, indent + "Node: text=" + text + ", desc=" + desc + 
-                  ", id=" + viewId + ", clickable=" + node.isClickable());
-        }
-        
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                printNodeInfo(child, depth + 1);
+    private void printNodeInfo(AccessibilityNodeInfo root) {
+        treeWalker.walk(root, null, (node, depth) -> {
+            String indent = new String(new char[depth * 2]).replace('\0', ' ');
+            String text = node.getText() != null ? node.getText().toString() : "";
+            String desc = node.getContentDescription() != null ? node.getContentDescription().toString() : "";
+            String viewId = node.getViewIdResourceName() != null ? node.getViewIdResourceName() : "";
+            
+            if (!text.isEmpty() || !desc.isEmpty() || !viewId.isEmpty()) {
+                Log.d(TAG, indent + "Node: text=" + text + ", desc=" + desc + 
+                      ", id=" + viewId + ", clickable=" + node.isClickable());
             }
-        }
+            
+            // 限制深度避免日志过多
+            return depth >= 3 ? NodeTreeWalker.SKIP_CHILDREN : NodeTreeWalker.CONTINUE;
+        });
     }
     
     /**
      * 获取聊天标题
      */
-    private String getChatTitle(AccessibilityNodeInfo rootNode) {
+    private String getChatTitle(UiSnapshot snapshot) {
         // 尝试多种方式获取标题
-        List<AccessibilityNodeInfo> titleNodes = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/title");
+        List<AccessibilityNodeInfo> titleNodes = snapshot.findByViewId("com.tencent.mm:id/title");
         if (!titleNodes.isEmpty()) {
             CharSequence title = titleNodes.get(0).getText();
             if (title != null) {
@@ -805,13 +993,13 @@ public class WeChatAccessibilityService extends AccessibilityService {
     /**
      * 获取最新消息
      */
-    private String getLatestMessage(AccessibilityNodeInfo rootNode) {
+    private String getLatestMessage(UiSnapshot snapshot) {
         // 查找消息列表
-        List<AccessibilityNodeInfo> messageNodes = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/chatting_content_layout");
+        List<AccessibilityNodeInfo> messageNodes = snapshot.findByViewId("com.tencent.mm:id/chatting_content_layout");
         
         if (messageNodes.isEmpty()) {
             // 尝试其他方式
-            messageNodes = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/message_content");
+            messageNodes = snapshot.findByViewId("com.tencent.mm:id/message_content");
         }
         
         if (!messageNodes.isEmpty()) {
@@ -829,33 +1017,27 @@ public class WeChatAccessibilityService extends AccessibilityService {
     private String extractText(AccessibilityNodeInfo node) {
         if (node == null) return null;
         
-        CharSequence text = node.getText();
-        if (text != null && text.length() > 0) {
-            return text.toString();
-        }
-        
-        // 递归查找子节点
-        for (int i = 0; i < node.getChildCount(); i++) {
-            AccessibilityNodeInfo child = node.getChild(i);
-            if (child != null) {
-                String childText = extractText(child);
-                if (childText != null) {
-                    return childText;
-                }
+        // 先序查找第一个有文本的节点
+        String[] result = new String[1];
+        treeWalker.walk(node, null, (current, depth) -> {
+            CharSequence text = current.getText();
+            if (text != null && text.length() > 0) {
+                result[0] = text.toString();
+                return NodeTreeWalker.STOP;
             }
-        }
-        
-        return null;
+            return NodeTreeWalker.CONTINUE;
+        });
+        return result[0];
     }
     
     /**
      * 检查关键词并回复
      */
-    private void checkAndReply(String chatTitle, String message, AccessibilityNodeInfo rootNode) {
+    private void checkAndReply(String chatTitle, String message, UiSnapshot snapshot) {
         // 检查冷却时间
         long now = System.currentTimeMillis();
         Long lastTime = lastSendTime.get(chatTitle);
-        int cooldown = configManager.getCooldownSeconds() * 1000;
+        int cooldown = config.cooldownSeconds * 1000;
         
         if (lastTime != null && (now - lastTime) < cooldown) {
             Log.d(TAG, "冷却中，跳过");
@@ -863,14 +1045,23 @@ public class WeChatAccessibilityService extends AccessibilityService {
         }
         
         // 检查关键词
-        String reply = configManager.checkKeyword(message);
+        long matchStart = MetricsRegistry.now();
+        String reply = config.checkKeyword(message);
+        MetricsRegistry.recordSince(MetricsRegistry.Metric.REPLY_MATCH, matchStart);
         if (reply != null) {
             Log.i(TAG, "触发关键词，准备回复: " + reply);
             
-            if (sendMessage(reply, rootNode)) {
+            long sendStart = MetricsRegistry.now();
+            boolean sent = sendMessage(reply, snapshot);
+            MetricsRegistry.recordSince(MetricsRegistry.Metric.REPLY_SEND, sendStart);
+            if (sent) {
                 lastSendTime.put(chatTitle, now);
+                MetricsRegistry.recordMillis(MetricsRegistry.Metric.TIME_TO_REPLY,
+                    android.os.SystemClock.uptimeMillis() - lastEventTime);
+                MetricsRegistry.increment(MetricsRegistry.Counter.REPLY_SENT);
                 Log.i(TAG, "✓ 回复成功");
             } else {
+                MetricsRegistry.increment(MetricsRegistry.Counter.REPLY_FAILED);
                 Log.e(TAG, "✗ 回复失败");
             }
         }
@@ -879,13 +1070,13 @@ public class WeChatAccessibilityService extends AccessibilityService {
     /**
      * 发送消息
      */
-    private boolean sendMessage(String message, AccessibilityNodeInfo rootNode) {
+    private boolean sendMessage(String message, UiSnapshot snapshot) {
         try {
             // 查找输入框
-            List<AccessibilityNodeInfo> editNodes = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/input");
+            List<AccessibilityNodeInfo> editNodes = snapshot.findByViewId("com.tencent.mm:id/input");
             
             if (editNodes.isEmpty()) {
-                editNodes = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/edit_text");
+                editNodes = snapshot.findByViewId("com.tencent.mm:id/edit_text");
             }
             
             if (editNodes.isEmpty()) {
@@ -911,9 +1102,9 @@ public class WeChatAccessibilityService extends AccessibilityService {
             }
             
             // 查找发送按钮
-            List<AccessibilityNodeInfo> sendButtons = rootNode.findAccessibilityNodeInfosByText("发送");
+            List<AccessibilityNodeInfo> sendButtons = snapshot.findByText("发送");
             if (sendButtons.isEmpty()) {
-                sendButtons = rootNode.findAccessibilityNodeInfosByViewId("com.tencent.mm:id/send_btn");
+                sendButtons = snapshot.findByViewId("com.tencent.mm:id/send_btn");
             }
             
             if (!sendButtons.isEmpty()) {
@@ -939,86 +1130,45 @@ public class WeChatAccessibilityService extends AccessibilityService {
     @Override
     public void onDestroy() {
         super.onDestroy();
-        // 停止周期性检查
-        if (handler != null && periodicCheckRunnable != null) {
-            handler.removeCallbacks(periodicCheckRunnable);
+        // 停止来电探测
+        if (callProbeScheduler != null) {
+            callProbeScheduler.disarm();
+            LogManager.log("来电探测统计: " + callProbeScheduler.describeCounters());
         }
-        Log.i(TAG, "服务已销毁");
-    }
-    
-    /**
-     * 简单点击方法
-     */
-    private boolean performSimpleClick(int x, int y) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            try {
-                LogManager.log("执行简单点击: (" + x + "," + y + ")");
-                
-                android.graphics.Path path = new android.graphics.Path();
-                path.moveTo(x, y);
-                
-                android.accessibilityservice.GestureDescription.StrokeDescription stroke = 
-                    new android.accessibilityservice.GestureDescription.StrokeDescription(path, 0, 150);
-                
-                android.accessibilityservice.GestureDescription gesture = 
-                    new android.accessibilityservice.GestureDescription.Builder()
-                        .addStroke(stroke)
-                        .build();
-                
-                final boolean[] completed = {false};
-                final boolean[] success = {false};
-                
-                boolean result = dispatchGesture(gesture, new android.accessibilityservice.AccessibilityService.GestureResultCallback() {
-                    @Override
-                    public void onCompleted(android.accessibilityservice.GestureDescription gestureDescription) {
-                        super.onCompleted(gestureDescription);
-                        completed[0] = true;
-                        success[0] = true;
-                        LogManager.log("✓ 简单点击完成");
-                    }
-                    
-                    @Override
-                    public void onCancelled(android.accessibilityservice.GestureDescription gestureDescription) {
-                        super.onCancelled(gestureDescription);
-                        completed[0] = true;
-                        success[0] = false;
-                        LogManager.log("✗ 简单点击取消");
-                    }
-                }, null);
-                
-                if (result) {
-                    // 等待手势完成
-                    int waitCount = 0;
-                    while (!completed[0] && waitCount < 15) { // 最多等待1.5秒
-                        try {
-                            Thread.sleep(100);
-                        } catch (InterruptedException e) {
-                            break;
-                        }
-                        waitCount++;
-                    }
-                    return success[0];
-                }
-                
-                LogManager.log("✗ 简单点击失败");
-                return false;
-            } catch (Exception e) {
-                Log.e(TAG, "简单点击失败: " + e.getMessage());
-                LogManager.log("✗ 简单点击异常: " + e.getMessage());
-                return false;
-            }
+        if (greenScanner != null) {
+            greenScanner.shutdown();
         }
-        LogManager.log("✗ Android版本不支持手势点击");
-        return false;
+        if (gestureDispatcher != null) {
+            LogManager.log("手势统计: " + gestureDispatcher.describeCounters());
+        }
+        if (answerClickEngine != null) {
+            LogManager.log("接听点击统计: " + answerClickEngine.describeCounters());
+        }
+        if (screenshotBroker != null) {
+            LogManager.log("截图统计: " + screenshotBroker.describeCounters());
+            // 在工作线程上同步完成清理，之后 quit 清空队列也不影响
+            screenshotBroker.release();
+        }
+        // 停止工作线程
+        if (eventPipeline != null) {
+            LogManager.log("事件统计: " + eventPipeline.describeCounters());
+            LogManager.log("耗时统计:\n" + MetricsRegistry.dump());
+            LogManager.log("日志文件: " + LogFileSink.getInstance().describeCounters());
+            eventPipeline.quit();
+        }
+        // 工作线程停止后再结束 su 进程
+        LogManager.log("Root Shell统计: " + rootShell.describeCounters());
+        rootShell.close();
+        Log.i(TAG, "服务已销毁");
     }
     
     /**
      * 截图并识别绿色按钮位置 - 兼容性版本
      */
-    private void takeScreenshotAndFindGreenButton() {
+    private void takeScreenshotAndFindGreenButton(String locatorKey, AnswerScreenState baseline) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
             // Android 11+ 使用新的无障碍截图API
-            takeScreenshotNew();
+            takeScreenshotNew(locatorKey, baseline);
         } else {
             // 较旧版本使用传统方法
             LogManager.log("当前Android版本不支持无障碍截图，尝试其他方法");
@@ -1031,76 +1181,78 @@ public class WeChatAccessibilityService extends AccessibilityService {
      * Android 11+ 的新截图方法
      */
     @SuppressWarnings("NewApi")
-    private void takeScreenshotNew() {
-        try {
-            Log.i(TAG, "开始截图识别绿色按钮...");
-            LogManager.log("开始截图识别绿色按钮...");
-            
-            // 使用无障碍服务的截图功能
-            takeScreenshot(Display.DEFAULT_DISPLAY, getMainExecutor(), 
-                new AccessibilityService.TakeScreenshotCallback() {
-                    @Override
-                    public void onSuccess(AccessibilityService.ScreenshotResult screenshotResult) {
-                        try {
-                            Bitmap bitmap = Bitmap.wrapHardwareBuffer(
-                                screenshotResult.getHardwareBuffer(),
-                                screenshotResult.getColorSpace()
-                            );
-                            
-                            if (bitmap != null) {
-                                Log.i(TAG, "截图成功: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-                                LogManager.log("截图成功: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-                                
-                                // 分析图像找绿色按钮
-                                android.graphics.Point greenButtonPos = findGreenButton(bitmap);
-                                
-                                if (greenButtonPos != null) {
-                                    Log.i(TAG, "找到绿色按钮位置: (" + greenButtonPos.x + ", " + greenButtonPos.y + ")");
-                                    LogManager.log("✓ 找到绿色按钮位置: (" + greenButtonPos.x + ", " + greenButtonPos.y + ")");
-                                    performGlobalClick(greenButtonPos.x, greenButtonPos.y);
-                                } else {
-                                    Log.w(TAG, "未找到绿色按钮");
-                                    LogManager.log("✗ 未找到绿色按钮，尝试节点分析");
-                                    findGreenButtonByNodeAnalysis();
-                                }
-                                
-                                bitmap.recycle();
-                            } else {
-                                LogManager.log("✗ 截图结果为空");
-                                findGreenButtonByNodeAnalysis();
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "处理截图失败: " + e.getMessage());
-                            LogManager.log("✗ 处理截图失败: " + e.getMessage());
-                            e.printStackTrace();
-                            findGreenButtonByNodeAnalysis();
-                        }
-                    }
-                    
-                    @Override
-                    public void onFailure(int errorCode) {
-                        Log.e(TAG, "截图失败，错误码: " + errorCode);
-                        LogManager.log("✗ 截图失败，错误码: " + errorCode + "，尝试节点分析");
-                        findGreenButtonByNodeAnalysis();
-                    }
-                });
+    private void takeScreenshotNew(String locatorKey, AnswerScreenState baseline) {
+        Log.i(TAG, "开始截图识别绿色按钮...");
+        LogManager.log("开始截图识别绿色按钮...");
+        
+        // 来电期间连续请求时复用刚截的帧，并由调度器控制截图间隔
+        screenshotBroker.request(ScreenshotBroker.DEFAULT_MAX_AGE_MS, new ScreenshotBroker.Callback() {
+            @Override
+            public void onFrame(ScreenshotBroker.Frame frame) {
+                Bitmap bitmap = frame.bitmap;
+                Log.i(TAG, "截图成功: " + bitmap.getWidth() + "x" + bitmap.getHeight());
+                LogManager.log("截图成功: " + bitmap.getWidth() + "x" + bitmap.getHeight());
                 
-        } catch (Exception e) {
-            Log.e(TAG, "截图异常: " + e.getMessage());
-            LogManager.log("✗ 截图异常: " + e.getMessage());
-            e.printStackTrace();
-            findGreenButtonByNodeAnalysis();
-        }
+                // 分析图像找绿色按钮
+                long locateStart = MetricsRegistry.now();
+                android.graphics.Point greenButtonPos = findGreenButton(bitmap);
+                
+                if (greenButtonPos != null) {
+                    Log.i(TAG, "找到绿色按钮位置: (" + greenButtonPos.x + ", " + greenButtonPos.y + ")");
+                    LogManager.log("✓ 找到绿色按钮位置: (" + greenButtonPos.x + ", " + greenButtonPos.y + ")");
+                    MetricsRegistry.recordSince(MetricsRegistry.Metric.LOCATE_SCREENSHOT, locateStart);
+                    List<AnswerTarget> targets = new java.util.ArrayList<>();
+                    targets.add(new AnswerTarget(AnswerLocatorCache.STRATEGY_SCREENSHOT, null, null,
+                        new android.graphics.Rect(greenButtonPos.x, greenButtonPos.y,
+                            greenButtonPos.x, greenButtonPos.y)));
+                    startScreenshotClick(targets, baseline, locatorKey);
+                } else {
+                    Log.w(TAG, "未找到绿色按钮");
+                    LogManager.log("✗ 未找到绿色按钮，尝试节点分析");
+                    findGreenButtonByNodeAnalysis();
+                }
+            }
+            
+            @Override
+            public void onFailure(int errorCode) {
+                Log.e(TAG, "截图失败，错误码: " + errorCode);
+                LogManager.log("✗ 截图失败，错误码: " + errorCode + "，尝试节点分析");
+                findGreenButtonByNodeAnalysis();
+            }
+        });
+    }
+    
+    /**
+     * 点击截图识别出的按钮，确认后记入定位缓存
+     */
+    private void startScreenshotClick(List<AnswerTarget> targets, AnswerScreenState baseline, String locatorKey) {
+        List<VerifiedClickEngine.Attempt> attempts = new java.util.ArrayList<>();
+        attempts.add(() -> clickTarget(targets.get(0)));
+        answerClickEngine.run(attempts, () -> isAnswerScreenChanged(baseline)).thenAccept(result -> {
+            LogManager.log((result.confirmed ? "✓✓✓ 截图定位接听成功: " : "✗ 截图定位接听未确认: ") + result);
+            recordAnswerResult(result);
+            if (result.confirmed) {
+                callProbeScheduler.markResolved();
+                AnswerTarget target = targets.get(0);
+                locatorCache.recordHit(locatorKey, target.strategy, null, target.bounds);
+            }
+        }).exceptionally(e -> {
+            LogManager.log("✗ 截图定位接听异常: " + e.getMessage());
+            return null;
+        });
     }
     
     /**
      * 通过节点分析查找绿色按钮（备用方案）
      */
     private void findGreenButtonByNodeAnalysis() {
+        withSnapshot(snapshot -> findGreenButtonByNodeAnalysis(snapshot));
+    }
+    
+    private void findGreenButtonByNodeAnalysis(UiSnapshot snapshot) {
         LogManager.log("开始节点分析查找绿色按钮");
         
-        AccessibilityNodeInfo rootNode = getRootInActiveWindow();
-        if (rootNode == null) {
+        if (snapshot.getRoot() == null) {
             LogManager.log("✗ 无法获取根节点");
             return;
         }
@@ -1112,27 +1264,25 @@ public class WeChatAccessibilityService extends AccessibilityService {
         };
         
         for (String keyword : greenButtonKeywords) {
-            List<AccessibilityNodeInfo> nodes = rootNode.findAccessibilityNodeInfosByText(keyword);
-            if (nodes != null && !nodes.isEmpty()) {
-                for (AccessibilityNodeInfo node : nodes) {
-                    LogManager.log("找到可能的按钮: " + keyword);
-                    if (tryClickNode(node, "绿色按钮(" + keyword + ")")) {
-                        LogManager.log("✓ 成功点击按钮: " + keyword);
-                        rootNode.recycle();
-                        return;
-                    }
+            List<AccessibilityNodeInfo> nodes = snapshot.findByText(keyword);
+            for (AccessibilityNodeInfo node : nodes) {
+                LogManager.log("找到可能的按钮: " + keyword);
+                if (tryClickNode(node, "绿色按钮(" + keyword + ")")) {
+                    LogManager.log("✓ 成功点击按钮: " + keyword);
+                    return;
                 }
             }
         }
         
         LogManager.log("✗ 未找到匹配的绿色按钮");
-        rootNode.recycle();
     }
     
     /**
      * 分析图像找绿色按钮 - 优化版本
+     * 硬件位图不支持逐像素读取，先整帧拷贝到可复用的 int[] 再在数组上扫描
      */
     private android.graphics.Point findGreenButton(Bitmap bitmap) {
+        Bitmap softBitmap = null;
         try {
             int width = bitmap.getWidth();
             int height = bitmap.getHeight();
@@ -1140,166 +1290,62 @@ public class WeChatAccessibilityService extends AccessibilityService {
             Log.i(TAG, "开始分析图像，尺寸: " + width + "x" + height);
             LogManager.log("开始分析图像，尺寸: " + width + "x" + height);
             
-            // 多区域扫描策略
-            android.graphics.Point result = null;
-            
-            // 1. 优先扫描常见按钮位置：屏幕底部右下角
-            result = scanRegionForGreen(bitmap, (int)(width * 0.7), width, (int)(height * 0.8), height, 8, "右下角");
-            if (result != null) return result;
-            
-            // 2. 扫描屏幕底部中间区域
-            result = scanRegionForGreen(bitmap, (int)(width * 0.3), (int)(width * 0.7), (int)(height * 0.8), height, 8, "底部中间");
-            if (result != null) return result;
-            
-            // 3. 扫描屏幕下半部分
-            result = scanRegionForGreen(bitmap, 0, width, height / 2, (int)(height * 0.9), 12, "下半部分");
-            if (result != null) return result;
-            
-            // 4. 扫描整个屏幕（最后手段）
-            result = scanRegionForGreen(bitmap, 0, width, 0, height, 15, "全屏");
-            if (result != null) return result;
-            
-            LogManager.log("✗ 未找到绿色按钮");
-            return null;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "分析图像异常: " + e.getMessage());
-            LogManager.log("✗ 分析图像异常: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
-    }
-    
-    /**
-     * 在指定区域扫描绿色按钮
-     */
-    private android.graphics.Point scanRegionForGreen(Bitmap bitmap, int startX, int endX, int startY, int endY, int step, String regionName) {
-        LogManager.log("扫描区域: " + regionName + " (" + startX + "," + startY + ")-(" + endX + "," + endY + ")");
-        
-        int maxGreenScore = 0;
-        android.graphics.Point bestPosition = null;
-        
-        for (int y = startY; y < endY; y += step) {
-            for (int x = startX; x < endX; x += step) {
-                try {
-                    int pixel = bitmap.getPixel(x, y);
-                    int greenScore = calculateGreenScore(pixel);
-                    
-                    if (greenScore > maxGreenScore && greenScore > 80) { // 提高阈值
-                        maxGreenScore = greenScore;
-                        bestPosition = new android.graphics.Point(x, y);
-                    }
-                } catch (Exception e) {
-                    // 忽略越界错误
-                    continue;
-                }
+            softBitmap = bitmap.getConfig() == Bitmap.Config.ARGB_8888
+                ? bitmap : bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            if (softBitmap == null) {
+                LogManager.log("✗ 图像拷贝失败");
+                return null;
             }
-        }
-        
-        if (bestPosition != null) {
-            LogManager.log("✓ 在" + regionName + "找到绿色区域，得分: " + maxGreenScore + ", 位置: (" + bestPosition.x + ", " + bestPosition.y + ")");
-            
-            // 在绿色区域周围寻找更精确的中心点
-            android.graphics.Point center = findGreenCenter(bitmap, bestPosition.x, bestPosition.y);
-            return center != null ? center : bestPosition;
-        }
-        
-        return null;
-    }
-    
-    /**
-     * 计算绿色得分（更精确的绿色检测算法）
-     */
-    private int calculateGreenScore(int pixel) {
-        int red = Color.red(pixel);
-        int green = Color.green(pixel);
-        int blue = Color.blue(pixel);
-        
-        // 微信绿色按钮的特征值
-        // 一般是 RGB(7, 193, 96) 或类似的绿色
-        
-        // 基础绿色检测：绿色明显高于红色和蓝色
-        if (green < 120 || green <= red + 40 || green <= blue + 40) {
-            return 0;
-        }
-        
-        // 计算与微信绿色的相似度
-        int targetR = 7, targetG = 193, targetB = 96;
-        
-        // 欧几里得距离（越小越相似）
-        int distance = (int) Math.sqrt(
-            Math.pow(red - targetR, 2) + 
-            Math.pow(green - targetG, 2) + 
-            Math.pow(blue - targetB, 2)
-        );
-        
-        // 距离越小，得分越高（最大200分）
-        int similarityScore = Math.max(0, 200 - distance);
-        
-        // 绿色强度得分
-        int intensityScore = green - Math.max(red, blue);
-        
-        // 综合得分
-        int totalScore = similarityScore + intensityScore;
-        
-        return totalScore;
-    }
-    
-    /**
-     * 在绿色区域周围找到中心点 - 优化版本
-     */
-    private android.graphics.Point findGreenCenter(Bitmap bitmap, int startX, int startY) {
-        try {
-            int width = bitmap.getWidth();
-            int height = bitmap.getHeight();
             
-            // 在起始点周围 80x80 的区域内寻找绿色中心
-            int searchRadius = 40;
-            int minX = Math.max(0, startX - searchRadius);
-            int maxX = Math.min(width - 1, startX + searchRadius);
-            int minY = Math.max(0, startY - searchRadius);
-            int maxY = Math.min(height - 1, startY + searchRadius);
+            int pixelCount = width * height;
+            if (pixelBuffer == null || pixelBuffer.length < pixelCount) {
+                pixelBuffer = new int[pixelCount];
+            }
+            softBitmap.getPixels(pixelBuffer, 0, width, 0, 0, width, height);
             
-            int totalX = 0;
-            int totalY = 0;
-            int totalScore = 0;
-            int greenCount = 0;
+            ArgbImage image = new ArgbImage(pixelBuffer, width, height);
             
-            LogManager.log("搜索绿色中心，区域: (" + minX + "," + minY + ")-(" + maxX + "," + maxY + ")");
+            // 先按区域顺序快速粗扫，找到第一个绿色种子就停；整帧没有绿色时不再做连通区域检测
+            if (quickDetector.detect(image) == null) {
+                LogManager.log("✗ 未找到绿色按钮");
+                return null;
+            }
             
-            for (int y = minY; y <= maxY; y += 2) { // 步长为2，提高速度
-                for (int x = minX; x <= maxX; x += 2) {
-                    try {
-                        int pixel = bitmap.getPixel(x, y);
-                        int greenScore = calculateGreenScore(pixel);
-                        
-                        if (greenScore > 60) { // 使用新的绿色检测算法
-                            totalX += x * greenScore; // 权重计算
-                            totalY += y * greenScore;
-                            totalScore += greenScore;
-                            greenCount++;
-                        }
-                    } catch (Exception e) {
-                        continue;
-                    }
-                }
+            // 优先找圆形的绿色连通区域，避免把聊天气泡等绿色元素当成按钮；
+            // 先粗扫再只在候选附近细化
+            PyramidGreenSearch.Result search = pyramidSearch.search(image);
+            BlobDetector.Blob button = search.best();
+            if (button != null) {
+                LogManager.log("✓ 找到 " + search.buttons.size() + " 个圆形绿色区域，最佳: (" + button.left + "," + button.top
+                    + ")-(" + button.right + "," + button.bottom + "), 圆度: "
+                    + String.format(java.util.Locale.US, "%.2f", button.circularity)
+                    + ", 采样像素: " + search.pixelsSampled);
+                return new android.graphics.Point(button.centerX, button.centerY);
             }
+            LogManager.log("未找到圆形绿色区域，采样像素: " + search.pixelsSampled);
             
-            if (greenCount > 0 && totalScore > 0) {
-                int centerX = totalX / totalScore; // 基于权重的中心点
-                int centerY = totalY / totalScore;
-                
-                LogManager.log("✓ 绿色中心点: (" + centerX + ", " + centerY + "), 绿色像素数: " + greenCount + ", 总得分: " + totalScore);
-                return new android.graphics.Point(centerX, centerY);
+            // 没有圆形区域时退回分块扫描的最佳候选
+            List<TiledGreenScanner.Candidate> candidates = greenScanner.scan(image);
+            if (candidates.isEmpty()) {
+                LogManager.log("✗ 未找到绿色按钮");
+                return null;
             }
             
-            LogManager.log("✗ 未找到足够的绿色像素");
-            return null;
+            TiledGreenScanner.Candidate best = candidates.get(0);
+            LogManager.log("✓ 找到 " + candidates.size() + " 个绿色区域，最佳在" + best.regionName
+                + "，得分: " + best.seedScore + ", 绿色像素数: " + best.samples);
+            LogManager.log("✓ 绿色中心点: (" + best.x + ", " + best.y + ")");
+            return new android.graphics.Point(best.x, best.y);
             
         } catch (Exception e) {
-            Log.e(TAG, "查找绿色中心异常: " + e.getMessage());
-            LogManager.log("✗ 查找绿色中心异常: " + e.getMessage());
+            Log.e(TAG, "分析图像异常: " + e.getMessage());
+            LogManager.log("✗ 分析图像异常: " + e.getMessage());
+            e.printStackTrace();
             return null;
+        } finally {
+            if (softBitmap != null && softBitmap != bitmap) {
+                softBitmap.recycle();
+            }
         }
     }
     
@@ -1428,62 +1474,33 @@ public class WeChatAccessibilityService extends AccessibilityService {
             return;
         }
         
-        try {
-            LogManager.log("开始测试截图...");
-            takeScreenshot(Display.DEFAULT_DISPLAY, getMainExecutor(), 
-                new AccessibilityService.TakeScreenshotCallback() {
-                    @Override
-                    public void onSuccess(AccessibilityService.ScreenshotResult screenshotResult) {
-                        try {
-                            LogManager.log("✓ 截图API调用成功");
-                            
-                            if (screenshotResult.getHardwareBuffer() != null) {
-                                LogManager.log("✓ 获得HardwareBuffer");
-                                
-                                Bitmap bitmap = Bitmap.wrapHardwareBuffer(
-                                    screenshotResult.getHardwareBuffer(),
-                                    screenshotResult.getColorSpace()
-                                );
-                                
-                                if (bitmap != null) {
-                                    LogManager.log("✓ 截图成功: " + bitmap.getWidth() + "x" + bitmap.getHeight());
-                                    bitmap.recycle();
-                                } else {
-                                    LogManager.log("✗ Bitmap创建失败");
-                                }
-                            } else {
-                                LogManager.log("✗ HardwareBuffer为空");
-                            }
-                        } catch (Exception e) {
-                            LogManager.log("✗ 截图处理异常: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                    }
-                    
-                    @Override
-                    public void onFailure(int errorCode) {
-                        LogManager.log("✗ 截图失败，错误码: " + errorCode);
-                        
-                        // 解释错误码
-                        String errorMsg = "未知错误";
-                        switch (errorCode) {
-                            case ERROR_TAKE_SCREENSHOT_INTERNAL_ERROR:
-                                errorMsg = "内部错误";
-                                break;
-                            case ERROR_TAKE_SCREENSHOT_NO_ACCESSIBILITY_ACCESS:
-                                errorMsg = "无无障碍权限";
-                                break;
-                            case ERROR_TAKE_SCREENSHOT_INTERVAL_TIME_SHORT:
-                                errorMsg = "截图间隔时间太短";
-                                break;
-                        }
-                        LogManager.log("错误详情: " + errorMsg);
-                    }
-                });
-        } catch (Exception e) {
-            LogManager.log("✗ 截图测试异常: " + e.getMessage());
-            e.printStackTrace();
-        }
+        LogManager.log("开始测试截图...");
+        screenshotBroker.request(0, new ScreenshotBroker.Callback() {
+            @Override
+            public void onFrame(ScreenshotBroker.Frame frame) {
+                LogManager.log("✓ 截图成功: " + frame.bitmap.getWidth() + "x" + frame.bitmap.getHeight());
+            }
+            
+            @Override
+            public void onFailure(int errorCode) {
+                LogManager.log("✗ 截图失败，错误码: " + errorCode);
+                
+                // 解释错误码
+                String errorMsg = "未知错误";
+                switch (errorCode) {
+                    case ERROR_TAKE_SCREENSHOT_INTERNAL_ERROR:
+                        errorMsg = "内部错误";
+                        break;
+                    case ERROR_TAKE_SCREENSHOT_NO_ACCESSIBILITY_ACCESS:
+                        errorMsg = "无无障碍权限";
+                        break;
+                    case ERROR_TAKE_SCREENSHOT_INTERVAL_TIME_SHORT:
+                        errorMsg = "截图间隔时间太短";
+                        break;
+                }
+                LogManager.log("错误详情: " + errorMsg);
+            }
+        });
     }
     
     /**
@@ -1503,38 +1520,10 @@ public class WeChatAccessibilityService extends AccessibilityService {
         
         LogManager.log("测试点击屏幕中心: (" + testX + ", " + testY + ")");
         
-        try {
-            android.graphics.Path path = new android.graphics.Path();
-            path.moveTo(testX, testY);
-            
-            android.accessibilityservice.GestureDescription.StrokeDescription stroke = 
-                new android.accessibilityservice.GestureDescription.StrokeDescription(path, 0, 100);
-            
-            android.accessibilityservice.GestureDescription gesture = 
-                new android.accessibilityservice.GestureDescription.Builder()
-                    .addStroke(stroke)
-                    .build();
-            
-            boolean result = dispatchGesture(gesture, new android.accessibilityservice.AccessibilityService.GestureResultCallback() {
-                @Override
-                public void onCompleted(android.accessibilityservice.GestureDescription gestureDescription) {
-                    super.onCompleted(gestureDescription);
-                    LogManager.log("✓ 测试点击完成");
-                }
-                
-                @Override
-                public void onCancelled(android.accessibilityservice.GestureDescription gestureDescription) {
-                    super.onCancelled(gestureDescription);
-                    LogManager.log("✗ 测试点击被取消");
-                }
-            }, null);
-            
-            LogManager.log("手势分发结果: " + (result ? "成功" : "失败"));
-            
-        } catch (Exception e) {
-            LogManager.log("✗ 点击测试异常: " + e.getMessage());
-            e.printStackTrace();
-        }
+        CompletableFuture<GestureDispatcher.GestureOutcome> future = gestureDispatcher.tap(testX, testY, 100);
+        LogManager.log("手势分发结果: " + (GestureDispatcher.wasRejected(future) ? "失败" : "成功"));
+        future.thenAccept(outcome ->
+            LogManager.log(outcome.isCompleted() ? "✓ 测试点击完成: " + outcome : "✗ 测试点击失败: " + outcome));
     }
     
     /**
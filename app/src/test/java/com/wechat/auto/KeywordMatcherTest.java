@@ -0,0 +1,220 @@
+package com.wechat.auto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.junit.Test;
+
+/**
+ * KeywordMatcher 与原来逐条遍历规则的匹配结果对比
+ */
+public class KeywordMatcherTest {
+
+    private static ConfigManager.KeywordItem rule(String keyword, String reply) {
+        return new ConfigManager.KeywordItem(keyword, reply, null);
+    }
+
+    private static ConfigManager.KeywordItem rule(String keyword, String reply, String type) {
+        return new ConfigManager.KeywordItem(keyword, reply, type);
+    }
+
+    /**
+     * 原来的实现：每条消息按顺序遍历全部规则，返回第一条命中的回复；
+     * 按规则类型扩展了前缀和正则
+     */
+    private static String baselineMatch(List<ConfigManager.KeywordItem> items, String matchMode, String message) {
+        if (message == null || message.isEmpty()) return null;
+
+        for (ConfigManager.KeywordItem item : items) {
+            String type = item.type != null ? item.type
+                : "exact".equals(matchMode) ? ConfigManager.KeywordItem.TYPE_EXACT
+                : ConfigManager.KeywordItem.TYPE_SUBSTRING;
+            boolean matched;
+            switch (type) {
+                case ConfigManager.KeywordItem.TYPE_EXACT:
+                    matched = message.trim().equals(item.keyword);
+                    break;
+                case ConfigManager.KeywordItem.TYPE_PREFIX:
+                    matched = stripLeading(message).startsWith(item.keyword);
+                    break;
+                case ConfigManager.KeywordItem.TYPE_REGEX:
+                    try {
+                        matched = Pattern.compile(item.keyword).matcher(message).find();
+                    } catch (PatternSyntaxException e) {
+                        matched = false;
+                    }
+                    break;
+                default:
+                    matched = message.contains(item.keyword);
+                    break;
+            }
+            if (matched) {
+                return item.reply;
+            }
+        }
+        return null;
+    }
+
+    private static String stripLeading(String text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) <= ' ') start++;
+        return text.substring(start);
+    }
+
+    @Test
+    public void fuzzyModeReturnsFirstRuleContainedInMessage() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("价格", "价格回复"),
+            rule("你好", "你好回复"),
+            rule("好", "好回复"));
+        KeywordMatcher matcher = new KeywordMatcher(items, "fuzzy");
+
+        assertEquals("你好回复", matcher.match("你好啊"));
+        assertEquals("价格回复", matcher.match("你好，请问价格多少"));
+        assertEquals("好回复", matcher.match("好的"));
+        assertNull(matcher.match("在吗"));
+    }
+
+    @Test
+    public void fuzzyModeMatchesOverlappingKeywordsByRuleOrder() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("abcd", "1"),
+            rule("bc", "2"),
+            rule("abc", "3"));
+        KeywordMatcher matcher = new KeywordMatcher(items, "fuzzy");
+
+        assertEquals("2", matcher.match("xabcx"));
+        assertEquals("1", matcher.match("xabcdx"));
+        assertNull(matcher.match("acbd"));
+    }
+
+    @Test
+    public void exactModeComparesTrimmedMessage() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("你好", "A"),
+            rule("你好", "B"),
+            rule("在吗", "C"));
+        KeywordMatcher matcher = new KeywordMatcher(items, "exact");
+
+        assertEquals("A", matcher.match("你好"));
+        assertEquals("A", matcher.match("  你好 \n"));
+        assertEquals("C", matcher.match("在吗"));
+        assertNull(matcher.match("你好啊"));
+    }
+
+    @Test
+    public void prefixRulesSkipLeadingWhitespace() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("查询", "查询回复", ConfigManager.KeywordItem.TYPE_PREFIX),
+            rule("查", "查回复", ConfigManager.KeywordItem.TYPE_PREFIX));
+        KeywordMatcher matcher = new KeywordMatcher(items, "fuzzy");
+
+        assertEquals("查询回复", matcher.match("  查询订单"));
+        assertEquals("查回复", matcher.match("查一下"));
+        assertNull(matcher.match("帮我查询"));
+    }
+
+    @Test
+    public void regexRulesUseFindAndSkipInvalidPatterns() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("([", "无效", ConfigManager.KeywordItem.TYPE_REGEX),
+            rule("\\d{6}", "验证码", ConfigManager.KeywordItem.TYPE_REGEX),
+            rule("^在吗$", "在", ConfigManager.KeywordItem.TYPE_REGEX));
+        KeywordMatcher matcher = new KeywordMatcher(items, "fuzzy");
+
+        assertEquals("验证码", matcher.match("验证码 123456 请查收"));
+        assertEquals("在", matcher.match("在吗"));
+        assertNull(matcher.match("在吗？"));
+    }
+
+    @Test
+    public void mixedTypesFollowRuleOrder() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("退款", "正则", ConfigManager.KeywordItem.TYPE_REGEX),
+            rule("订单", "前缀", ConfigManager.KeywordItem.TYPE_PREFIX),
+            rule("订单退款", "精确", ConfigManager.KeywordItem.TYPE_EXACT),
+            rule("订单", "包含", ConfigManager.KeywordItem.TYPE_SUBSTRING));
+        KeywordMatcher matcher = new KeywordMatcher(items, "exact");
+
+        assertEquals("正则", matcher.match("订单退款"));
+        assertEquals("前缀", matcher.match("订单号是多少"));
+        assertEquals("包含", matcher.match("我的订单"));
+        assertNull(matcher.match("你好"));
+    }
+
+    @Test
+    public void emptyInputAndEmptyRules() {
+        KeywordMatcher empty = new KeywordMatcher(new ArrayList<>(), "fuzzy");
+        assertNull(empty.match("你好"));
+        assertEquals(0, empty.size());
+
+        KeywordMatcher matcher = new KeywordMatcher(Arrays.asList(rule("你好", "A")), "fuzzy");
+        assertNull(matcher.match(null));
+        assertNull(matcher.match(""));
+    }
+
+    @Test
+    public void emptyFuzzyKeywordMatchesEveryMessage() {
+        List<ConfigManager.KeywordItem> items = Arrays.asList(
+            rule("你好", "A"),
+            rule("", "兜底"));
+        KeywordMatcher matcher = new KeywordMatcher(items, "fuzzy");
+
+        assertEquals("A", matcher.match("你好"));
+        assertEquals("兜底", matcher.match("随便什么"));
+    }
+
+    @Test
+    public void randomRulesAgreeWithBaselineLoop() {
+        Random random = new Random(42);
+        String alphabet = "ab你好 1";
+        String[] types = {
+            null,
+            ConfigManager.KeywordItem.TYPE_SUBSTRING,
+            ConfigManager.KeywordItem.TYPE_EXACT,
+            ConfigManager.KeywordItem.TYPE_PREFIX,
+            ConfigManager.KeywordItem.TYPE_REGEX
+        };
+
+        for (int round = 0; round < 200; round++) {
+            String matchMode = random.nextBoolean() ? "fuzzy" : "exact";
+            List<ConfigManager.KeywordItem> items = new ArrayList<>();
+            int ruleCount = 1 + random.nextInt(30);
+            for (int i = 0; i < ruleCount; i++) {
+                // 关键词首尾不含空白，与界面输入保持一致
+                String keyword = randomText(random, alphabet, 1 + random.nextInt(3)).trim();
+                if (keyword.isEmpty()) keyword = "a";
+                items.add(rule(keyword, "r" + i, types[random.nextInt(types.length)]));
+            }
+            KeywordMatcher matcher = new KeywordMatcher(items, matchMode);
+
+            for (int m = 0; m < 50; m++) {
+                String message = randomText(random, alphabet, random.nextInt(8));
+                assertEquals("规则 " + describe(items) + " 消息 [" + message + "]",
+                    baselineMatch(items, matchMode, message), matcher.match(message));
+            }
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static String describe(List<ConfigManager.KeywordItem> items) {
+        StringBuilder sb = new StringBuilder();
+        for (ConfigManager.KeywordItem item : items) {
+            sb.append('[').append(item.keyword).append('/').append(item.type).append(']');
+        }
+        return sb.toString();
+    }
+}
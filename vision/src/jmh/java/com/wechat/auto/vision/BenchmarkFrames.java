@@ -0,0 +1,36 @@
+package com.wechat.auto.vision;
+
+import java.util.Arrays;
+
+/**
+ * 基准测试用的合成来电界面：1080x2400 深色背景，
+ * 可选在下方中间画一个直径 180 的微信绿圆形按钮
+ */
+final class BenchmarkFrames {
+    static final int WIDTH = 1080;
+    static final int HEIGHT = 2400;
+
+    private BenchmarkFrames() {
+    }
+
+    static ArgbImage callScreen(boolean withButton) {
+        int[] pixels = new int[WIDTH * HEIGHT];
+        Arrays.fill(pixels, ArgbImage.argb(255, 40, 40, 40));
+        if (withButton) {
+            int green = ArgbImage.argb(255, 7, 193, 96);
+            int centerX = WIDTH / 2;
+            int centerY = HEIGHT * 7 / 8;
+            int radius = 90;
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                for (int x = centerX - radius; x <= centerX + radius; x++) {
+                    int dx = x - centerX;
+                    int dy = y - centerY;
+                    if (dx * dx + dy * dy <= radius * radius) {
+                        pixels[y * WIDTH + x] = green;
+                    }
+                }
+            }
+        }
+        return new ArgbImage(pixels, WIDTH, HEIGHT);
+    }
+}
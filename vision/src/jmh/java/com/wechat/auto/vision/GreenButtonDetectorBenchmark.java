@@ -0,0 +1,37 @@
+package com.wechat.auto.vision;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 整帧识别绿色按钮的耗时，分别测有按钮和没有按钮（需要扫完所有区域）的帧
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreenButtonDetectorBenchmark {
+
+    @Param({"true", "false"})
+    public boolean withButton;
+
+    private ArgbImage image;
+    private GreenButtonDetector detector;
+
+    @Setup
+    public void setUp() {
+        image = BenchmarkFrames.callScreen(withButton);
+        detector = new GreenButtonDetector();
+    }
+
+    @Benchmark
+    public GreenButtonDetector.Detection detect() {
+        return detector.detect(image);
+    }
+}
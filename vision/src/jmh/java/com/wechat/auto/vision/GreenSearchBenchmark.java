@@ -0,0 +1,65 @@
+package com.wechat.auto.vision;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 同一帧上各种找按钮方式的耗时对比：顺序分区扫描、分块并行扫描、连通区域检测、金字塔搜索
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GreenSearchBenchmark {
+
+    @Param({"true", "false"})
+    public boolean withButton;
+
+    private ArgbImage image;
+    private GreenButtonDetector sequential;
+    private TiledGreenScanner tiled;
+    private BlobDetector blobDetector;
+    private PyramidGreenSearch pyramid;
+
+    @Setup
+    public void setUp() {
+        image = BenchmarkFrames.callScreen(withButton);
+        sequential = new GreenButtonDetector();
+        tiled = new TiledGreenScanner();
+        blobDetector = new BlobDetector();
+        pyramid = new PyramidGreenSearch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        tiled.shutdown();
+    }
+
+    @Benchmark
+    public GreenButtonDetector.Detection sequential() {
+        return sequential.detect(image);
+    }
+
+    @Benchmark
+    public List<TiledGreenScanner.Candidate> tiled() {
+        return tiled.scan(image);
+    }
+
+    @Benchmark
+    public List<BlobDetector.Blob> blob() {
+        return blobDetector.findButtons(image);
+    }
+
+    @Benchmark
+    public PyramidGreenSearch.Result pyramid() {
+        return pyramid.search(image);
+    }
+}
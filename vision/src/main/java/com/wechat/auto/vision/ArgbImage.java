@@ -0,0 +1,59 @@
+package com.wechat.auto.vision;
+
+/**
+ * 行优先存放的 ARGB 像素图像
+ * 不依赖 android.graphics，可以在普通 JVM 上构造和分析
+ */
+public final class ArgbImage {
+
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    /**
+     * @param pixels 至少 width * height 个像素，按行优先排列，不做拷贝
+     */
+    public ArgbImage(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("图像尺寸无效: " + width + "x" + height);
+        }
+        if (pixels.length < width * height) {
+            throw new IllegalArgumentException("像素数组太小: " + pixels.length + " < " + width * height);
+        }
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    public static int red(int pixel) {
+        return (pixel >> 16) & 0xFF;
+    }
+
+    public static int green(int pixel) {
+        return (pixel >> 8) & 0xFF;
+    }
+
+    public static int blue(int pixel) {
+        return pixel & 0xFF;
+    }
+
+    public static int argb(int alpha, int red, int green, int blue) {
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+}
@@ -0,0 +1,244 @@
+package com.wechat.auto.vision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 绿色连通区域检测
+ * 按缩小倍数逐行采样，把每行连续的绿色点记成一段，与上一行相邻（含对角）的段用并查集合并成 8 连通区域，
+ * 输出每个区域的包围盒、面积和圆度，用来区分圆形接听按钮和聊天气泡等其他绿色元素；
+ * 只为绿色段分配标记，背景点不写任何缓冲区；段缓冲区和并查集在调用之间复用，非线程安全
+ */
+public class BlobDetector {
+
+    public static final int DEFAULT_DOWNSAMPLE = 8;
+    /** 接听按钮的最小圆度 */
+    public static final double MIN_BUTTON_CIRCULARITY = 0.85;
+    /** 接听按钮的最小直径（原图像素） */
+    public static final int MIN_BUTTON_DIAMETER = 48;
+    // 圆占外接正方形的比例 π/4
+    private static final double CIRCLE_FILL = Math.PI / 4;
+
+    /** 按所在扫描区域的权重、圆度从高到低排序 */
+    static final Comparator<Blob> BUTTON_ORDER = (a, b) -> {
+        if (a.weight != b.weight) return Integer.compare(b.weight, a.weight);
+        return Double.compare(b.circularity, a.circularity);
+    };
+
+    private final int downsample;
+    private final List<GreenButtonDetector.Region> regions;
+
+    // 绿色段：所在采样行和起止列（采样网格单位），下标即并查集中的编号
+    private int[] runRows = new int[64];
+    private int[] runStarts = new int[64];
+    private int[] runEnds = new int[64];
+    private final UnionFind unionFind = new UnionFind(64);
+
+    public BlobDetector() {
+        this(DEFAULT_DOWNSAMPLE, GreenButtonDetector.DEFAULT_REGIONS);
+    }
+
+    public BlobDetector(int downsample, List<GreenButtonDetector.Region> regions) {
+        if (downsample <= 0) {
+            throw new IllegalArgumentException("缩小倍数必须大于 0");
+        }
+        this.downsample = downsample;
+        this.regions = regions;
+    }
+
+    /**
+     * 检测所有绿色连通区域，按面积从大到小排列
+     */
+    public List<Blob> detect(ArgbImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+        int maskWidth = (width + downsample - 1) / downsample;
+        int maskHeight = (height + downsample - 1) / downsample;
+        unionFind.clear();
+
+        // 第一遍：逐行找出绿色段，与上一行相邻的段合并
+        int previousFirst = 0;
+        for (int my = 0; my < maskHeight; my++) {
+            int rowOffset = my * downsample * width;
+            int rowFirst = unionFind.count();
+            int mx = 0;
+            while (mx < maskWidth) {
+                if (!isGreen(pixels[rowOffset + mx * downsample])) {
+                    mx++;
+                    continue;
+                }
+                int start = mx;
+                do {
+                    mx++;
+                } while (mx < maskWidth && isGreen(pixels[rowOffset + mx * downsample]));
+                addRun(my, start, mx - 1);
+            }
+            connectRows(previousFirst, rowFirst, unionFind.count());
+            previousFirst = rowFirst;
+        }
+
+        // 第二遍：按根汇总各段的统计
+        int runs = unionFind.count();
+        Blob[] byRoot = new Blob[runs];
+        List<Blob> blobs = new ArrayList<>();
+        for (int run = 0; run < runs; run++) {
+            int root = unionFind.find(run);
+            Blob blob = byRoot[root];
+            if (blob == null) {
+                blob = new Blob();
+                byRoot[root] = blob;
+                blobs.add(blob);
+            }
+            blob.addRun(runRows[run], runStarts[run], runEnds[run]);
+        }
+
+        for (Blob blob : blobs) {
+            blob.finish(downsample, width, height, regions);
+        }
+        Collections.sort(blobs, (a, b) -> Integer.compare(b.area, a.area));
+        return blobs;
+    }
+
+    /**
+     * 从检测结果中挑出像接听按钮的圆形区域，按所在扫描区域的权重、圆度排序
+     */
+    public List<Blob> findButtons(ArgbImage image) {
+        List<Blob> buttons = new ArrayList<>();
+        for (Blob blob : detect(image)) {
+            if (blob.isButtonLike()) {
+                buttons.add(blob);
+            }
+        }
+        Collections.sort(buttons, BUTTON_ORDER);
+        return buttons;
+    }
+
+    private static boolean isGreen(int pixel) {
+        return GreenButtonDetector.greenScore(pixel) > GreenButtonDetector.CENTER_THRESHOLD;
+    }
+
+    private void addRun(int row, int start, int end) {
+        int run = unionFind.add();
+        if (run == runRows.length) {
+            int capacity = run * 2;
+            runRows = Arrays.copyOf(runRows, capacity);
+            runStarts = Arrays.copyOf(runStarts, capacity);
+            runEnds = Arrays.copyOf(runEnds, capacity);
+        }
+        runRows[run] = row;
+        runStarts[run] = start;
+        runEnds[run] = end;
+    }
+
+    /**
+     * 合并上一行 [previousFirst, rowFirst) 与当前行 [rowFirst, rowEnd) 中相邻（含对角）的段；
+     * 两行的段都按列有序，双指针一遍扫完
+     */
+    private void connectRows(int previousFirst, int rowFirst, int rowEnd) {
+        int above = previousFirst;
+        for (int run = rowFirst; run < rowEnd; run++) {
+            int start = runStarts[run] - 1;
+            int end = runEnds[run] + 1;
+            while (above < rowFirst && runEnds[above] < start) {
+                above++;
+            }
+            for (int candidate = above; candidate < rowFirst && runStarts[candidate] <= end; candidate++) {
+                unionFind.union(run, candidate);
+            }
+        }
+    }
+
+    /**
+     * 按采样网格上的点数和包围盒（网格单位）计算圆度
+     */
+    static double circularity(int cells, int boxWidth, int boxHeight) {
+        double aspect = (double) Math.min(boxWidth, boxHeight) / Math.max(boxWidth, boxHeight);
+        double fill = (double) cells / ((long) boxWidth * boxHeight);
+        return aspect * Math.max(0.0, 1.0 - Math.abs(fill / CIRCLE_FILL - 1.0));
+    }
+
+    /**
+     * 点所在扫描区域的最大权重，不在任何区域时为 0
+     */
+    static int regionWeight(List<GreenButtonDetector.Region> regions, int x, int y, int width, int height) {
+        int weight = 0;
+        for (GreenButtonDetector.Region region : regions) {
+            if (region.weight > weight && region.contains(x, y, width, height)) {
+                weight = region.weight;
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * 连通区域，坐标均为原图像素
+     */
+    public static class Blob {
+        public int left;
+        public int top;
+        public int right;
+        public int bottom;
+        /** 中心（区域质心） */
+        public int centerX;
+        public int centerY;
+        /** 估算面积（像素） */
+        public int area;
+        /** 圆度：包围盒宽高比 × 填充率与圆（π/4）的接近程度，圆约为 1，正方形约 0.73，长条更小 */
+        public double circularity;
+        /** 中心所在扫描区域的最大权重，不在任何区域时为 0 */
+        public int weight;
+
+        private int minX = Integer.MAX_VALUE;
+        private int minY = Integer.MAX_VALUE;
+        private int maxX = -1;
+        private int maxY = -1;
+        private int cells;
+        private long sumX;
+        private long sumY;
+
+        private void addRun(int my, int start, int end) {
+            int length = end - start + 1;
+            cells += length;
+            sumX += (long) (start + end) * length / 2;
+            sumY += (long) my * length;
+            if (start < minX) minX = start;
+            if (end > maxX) maxX = end;
+            if (my < minY) minY = my;
+            if (my > maxY) maxY = my;
+        }
+
+        private void finish(int downsample, int width, int height, List<GreenButtonDetector.Region> regions) {
+            int half = downsample / 2;
+            left = minX * downsample;
+            top = minY * downsample;
+            right = Math.min(width - 1, maxX * downsample + downsample - 1);
+            bottom = Math.min(height - 1, maxY * downsample + downsample - 1);
+            centerX = Math.min(width - 1, (int) (sumX * downsample / cells) + half);
+            centerY = Math.min(height - 1, (int) (sumY * downsample / cells) + half);
+            area = cells * downsample * downsample;
+
+            circularity = circularity(cells, maxX - minX + 1, maxY - minY + 1);
+            weight = regionWeight(regions, centerX, centerY, width, height);
+        }
+
+        public int getWidth() {
+            return right - left + 1;
+        }
+
+        public int getHeight() {
+            return bottom - top + 1;
+        }
+
+        /**
+         * 是否像圆形接听按钮：足够大且圆度足够
+         */
+        public boolean isButtonLike() {
+            return getWidth() >= MIN_BUTTON_DIAMETER && getHeight() >= MIN_BUTTON_DIAMETER
+                && circularity >= MIN_BUTTON_CIRCULARITY;
+        }
+    }
+}
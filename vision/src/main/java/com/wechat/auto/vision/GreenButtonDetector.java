@@ -0,0 +1,216 @@
+package com.wechat.auto.vision;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 在截图中查找微信绿色接听按钮
+ * 按区域优先级依次粗扫，找到得分最高的种子点后在周围按得分加权求中心；
+ * 只依赖 int[] ARGB 像素，不依赖 Android，可离线测试
+ */
+public class GreenButtonDetector {
+
+    /** 粗扫时种子点的最低得分 */
+    public static final int SEED_THRESHOLD = 80;
+    /** 求中心时计入的最低得分 */
+    public static final int CENTER_THRESHOLD = 60;
+    public static final int CENTER_RADIUS = 40;
+    public static final int CENTER_STEP = 2;
+
+    // 微信绿色按钮的特征值 RGB(7, 193, 96)
+    private static final int TARGET_RED = 7;
+    private static final int TARGET_GREEN = 193;
+    private static final int TARGET_BLUE = 96;
+    private static final int MAX_DISTANCE = 200;
+
+    /** 默认扫描顺序：右下角、底部中间、下半部分、全屏；权重越大越优先 */
+    public static final List<Region> DEFAULT_REGIONS = Collections.unmodifiableList(Arrays.asList(
+        new Region("右下角", 0.7, 1.0, 0.8, 1.0, 8, 4),
+        new Region("底部中间", 0.3, 0.7, 0.8, 1.0, 8, 3),
+        new Region("下半部分", 0.0, 1.0, 0.5, 0.9, 12, 2),
+        new Region("全屏", 0.0, 1.0, 0.0, 1.0, 15, 1)
+    ));
+
+    private final List<Region> regions;
+
+    public GreenButtonDetector() {
+        this(DEFAULT_REGIONS);
+    }
+
+    public GreenButtonDetector(List<Region> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * 按区域顺序查找，返回第一个找到的按钮，没有时返回 null
+     */
+    public Detection detect(ArgbImage image) {
+        for (Region region : regions) {
+            Detection detection = scanRegion(image, region);
+            if (detection != null) {
+                return detection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在一个区域内粗扫，找到种子点后求中心
+     */
+    public Detection scanRegion(ArgbImage image, Region region) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+
+        int startX = (int) (width * region.left);
+        int endX = Math.min(width, (int) (width * region.right));
+        int startY = (int) (height * region.top);
+        int endY = Math.min(height, (int) (height * region.bottom));
+        int step = region.step;
+
+        int maxScore = 0;
+        int bestX = -1;
+        int bestY = -1;
+
+        for (int y = startY; y < endY; y += step) {
+            int rowOffset = y * width;
+            for (int x = startX; x < endX; x += step) {
+                int score = greenScore(pixels[rowOffset + x]);
+                if (score > maxScore && score > SEED_THRESHOLD) {
+                    maxScore = score;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+
+        if (bestX < 0) {
+            return null;
+        }
+        return refineCenter(image, region.name, bestX, bestY, maxScore);
+    }
+
+    /**
+     * 在种子点周围按得分加权求中心，没有足够绿色像素时退回种子点
+     */
+    private Detection refineCenter(ArgbImage image, String regionName, int seedX, int seedY, int seedScore) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+
+        int minX = Math.max(0, seedX - CENTER_RADIUS);
+        int maxX = Math.min(width - 1, seedX + CENTER_RADIUS);
+        int minY = Math.max(0, seedY - CENTER_RADIUS);
+        int maxY = Math.min(height - 1, seedY + CENTER_RADIUS);
+
+        long totalX = 0;
+        long totalY = 0;
+        long totalScore = 0;
+        int greenCount = 0;
+
+        for (int y = minY; y <= maxY; y += CENTER_STEP) {
+            int rowOffset = y * width;
+            for (int x = minX; x <= maxX; x += CENTER_STEP) {
+                int score = greenScore(pixels[rowOffset + x]);
+                if (score > CENTER_THRESHOLD) {
+                    totalX += (long) x * score;
+                    totalY += (long) y * score;
+                    totalScore += score;
+                    greenCount++;
+                }
+            }
+        }
+
+        if (greenCount > 0 && totalScore > 0) {
+            return new Detection((int) (totalX / totalScore), (int) (totalY / totalScore),
+                seedX, seedY, seedScore, regionName, greenCount);
+        }
+        return new Detection(seedX, seedY, seedX, seedY, seedScore, regionName, 0);
+    }
+
+    /**
+     * 计算绿色得分：与微信绿的相似度 + 绿色强度，不是明显绿色时为 0
+     */
+    public static int greenScore(int pixel) {
+        int red = (pixel >> 16) & 0xFF;
+        int green = (pixel >> 8) & 0xFF;
+        int blue = pixel & 0xFF;
+
+        // 绿色明显高于红色和蓝色
+        if (green < 120 || green <= red + 40 || green <= blue + 40) {
+            return 0;
+        }
+
+        int intensityScore = green - Math.max(red, blue);
+
+        // 距离平方超过上限时相似度为 0，不必开方
+        int dr = red - TARGET_RED;
+        int dg = green - TARGET_GREEN;
+        int db = blue - TARGET_BLUE;
+        int distanceSquared = dr * dr + dg * dg + db * db;
+        if (distanceSquared >= MAX_DISTANCE * MAX_DISTANCE) {
+            return intensityScore;
+        }
+
+        return MAX_DISTANCE - (int) Math.sqrt(distanceSquared) + intensityScore;
+    }
+
+    /**
+     * 扫描区域，坐标为相对屏幕宽高的比例
+     */
+    public static class Region {
+        public final String name;
+        public final double left;
+        public final double right;
+        public final double top;
+        public final double bottom;
+        public final int step;
+        /** 分块扫描时候选点的排序权重 */
+        public final int weight;
+
+        public Region(String name, double left, double right, double top, double bottom, int step, int weight) {
+            this.name = name;
+            this.left = left;
+            this.right = right;
+            this.top = top;
+            this.bottom = bottom;
+            this.step = step;
+            this.weight = weight;
+        }
+
+        /**
+         * 点是否落在区域内
+         */
+        public boolean contains(int x, int y, int width, int height) {
+            return x >= (int) (width * left) && x < (int) (width * right)
+                && y >= (int) (height * top) && y < (int) (height * bottom);
+        }
+    }
+
+    /**
+     * 检测结果
+     */
+    public static class Detection {
+        /** 建议点击的位置 */
+        public final int x;
+        public final int y;
+        /** 粗扫得分最高的种子点 */
+        public final int seedX;
+        public final int seedY;
+        public final int seedScore;
+        public final String regionName;
+        /** 参与求中心的绿色采样点数，为 0 表示直接使用种子点 */
+        public final int centerSamples;
+
+        public Detection(int x, int y, int seedX, int seedY, int seedScore, String regionName, int centerSamples) {
+            this.x = x;
+            this.y = y;
+            this.seedX = seedX;
+            this.seedY = seedY;
+            this.seedScore = seedScore;
+            this.regionName = regionName;
+            this.centerSamples = centerSamples;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.wechat.auto.vision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 由粗到细的金字塔搜索
+ * 先按最大缩小倍数做一遍连通区域检测找出候选按钮，
+ * 再只在候选区域附近按更小的步长逐级细化，最后一级为 1 时点击位置精确到原图像素；
+ * 每次搜索统计实际采样的像素数
+ */
+public class PyramidGreenSearch {
+
+    /** 默认缩小倍数：1/8 粗扫，1/2 过渡，原图精确定位 */
+    public static final int[] DEFAULT_SCALES = {8, 2, 1};
+    // 粗扫时采样稀疏，圆度误差大，只做宽松过滤，细化后再按按钮条件判断
+    private static final double COARSE_MIN_CIRCULARITY = 0.5;
+
+    private final int[] scales;
+    private final List<GreenButtonDetector.Region> regions;
+    private final BlobDetector coarseDetector;
+
+    public PyramidGreenSearch() {
+        this(DEFAULT_SCALES, GreenButtonDetector.DEFAULT_REGIONS);
+    }
+
+    /**
+     * @param scales 各级缩小倍数，必须严格递减且大于 0；
+     *               第一级过大时相距较近的绿色元素会在粗扫中连成一片
+     */
+    public PyramidGreenSearch(int[] scales, List<GreenButtonDetector.Region> regions) {
+        if (scales.length == 0) {
+            throw new IllegalArgumentException("至少需要一级缩小倍数");
+        }
+        for (int i = 0; i < scales.length; i++) {
+            if (scales[i] <= 0 || (i > 0 && scales[i] >= scales[i - 1])) {
+                throw new IllegalArgumentException("缩小倍数必须大于 0 且严格递减");
+            }
+        }
+        this.scales = scales.clone();
+        this.regions = regions;
+        this.coarseDetector = new BlobDetector(scales[0], regions);
+    }
+
+    public Result search(ArgbImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int coarse = scales[0];
+        long sampled = (long) ((width + coarse - 1) / coarse) * ((height + coarse - 1) / coarse);
+
+        List<BlobDetector.Blob> buttons = new ArrayList<>();
+        for (BlobDetector.Blob candidate : coarseDetector.detect(image)) {
+            if (!isCoarseCandidate(candidate)) continue;
+
+            BlobDetector.Blob blob = candidate;
+            int margin = coarse;
+            for (int level = 1; level < scales.length; level++) {
+                Refinement refinement = refine(image, blob, margin, scales[level]);
+                sampled += refinement.samples;
+                if (refinement.blob == null) break;
+
+                blob = refinement.blob;
+                margin = scales[level];
+            }
+            if (blob.isButtonLike()) {
+                buttons.add(blob);
+            }
+        }
+
+        Collections.sort(buttons, BlobDetector.BUTTON_ORDER);
+        return new Result(buttons, sampled);
+    }
+
+    private static boolean isCoarseCandidate(BlobDetector.Blob blob) {
+        return blob.getWidth() >= BlobDetector.MIN_BUTTON_DIAMETER / 2
+            && blob.getHeight() >= BlobDetector.MIN_BUTTON_DIAMETER / 2
+            && blob.circularity >= COARSE_MIN_CIRCULARITY;
+    }
+
+    /**
+     * 在上一级包围盒外扩 margin 的窗口内按 step 采样，重新计算包围盒、质心和圆度
+     */
+    private Refinement refine(ArgbImage image, BlobDetector.Blob previous, int margin, int step) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getPixels();
+
+        // 起点按步长对齐，与整帧按同一步长采样的网格一致
+        int startX = Math.max(0, previous.left - margin) / step * step;
+        int startY = Math.max(0, previous.top - margin) / step * step;
+        int endX = Math.min(width - 1, previous.right + margin);
+        int endY = Math.min(height - 1, previous.bottom + margin);
+
+        long samples = 0;
+        int count = 0;
+        long sumX = 0;
+        long sumY = 0;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+
+        for (int y = startY; y <= endY; y += step) {
+            int rowOffset = y * width;
+            for (int x = startX; x <= endX; x += step) {
+                samples++;
+                if (GreenButtonDetector.greenScore(pixels[rowOffset + x]) <= GreenButtonDetector.CENTER_THRESHOLD) {
+                    continue;
+                }
+                count++;
+                sumX += x;
+                sumY += y;
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
+            }
+        }
+
+        if (count == 0) {
+            return new Refinement(null, samples);
+        }
+
+        BlobDetector.Blob blob = new BlobDetector.Blob();
+        blob.left = minX;
+        blob.top = minY;
+        blob.right = Math.min(width - 1, maxX + step - 1);
+        blob.bottom = Math.min(height - 1, maxY + step - 1);
+        blob.centerX = (int) (sumX / count) + step / 2;
+        blob.centerY = (int) (sumY / count) + step / 2;
+        blob.area = count * step * step;
+        blob.circularity = BlobDetector.circularity(count, (maxX - minX) / step + 1, (maxY - minY) / step + 1);
+        blob.weight = BlobDetector.regionWeight(regions, blob.centerX, blob.centerY, width, height);
+        return new Refinement(blob, samples);
+    }
+
+    private static final class Refinement {
+        final BlobDetector.Blob blob;
+        final long samples;
+
+        Refinement(BlobDetector.Blob blob, long samples) {
+            this.blob = blob;
+            this.samples = samples;
+        }
+    }
+
+    /**
+     * 搜索结果
+     */
+    public static class Result {
+        /** 细化后的圆形按钮，按优先级从高到低排列 */
+        public final List<BlobDetector.Blob> buttons;
+        /** 本次搜索采样的像素数（粗扫 + 各级细化） */
+        public final long pixelsSampled;
+
+        Result(List<BlobDetector.Blob> buttons, long pixelsSampled) {
+            this.buttons = buttons;
+            this.pixelsSampled = pixelsSampled;
+        }
+
+        public BlobDetector.Blob best() {
+            return buttons.isEmpty() ? null : buttons.get(0);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.wechat.auto.vision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 分块并行扫描绿色按钮
+ * 整帧切成方块，在 ForkJoinPool 上并行给每块打分，只扫描一遍；
+ * 相邻的绿色块合并成候选区域，按中心点所在扫描区域的权重和得分排序
+ */
+public class TiledGreenScanner {
+
+    public static final int DEFAULT_TILE_SIZE = 128;
+    public static final int DEFAULT_STEP = 8;
+    // 每个子任务至少处理的块行数，避免任务拆得过碎
+    private static final int MIN_ROWS_PER_TASK = 2;
+
+    private final ForkJoinPool pool;
+    private final List<GreenButtonDetector.Region> regions;
+    private final int tileSize;
+    private final int step;
+
+    /**
+     * 使用与 CPU 核数相同的并行度
+     */
+    public TiledGreenScanner() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors()),
+            GreenButtonDetector.DEFAULT_REGIONS, DEFAULT_TILE_SIZE, DEFAULT_STEP);
+    }
+
+    public TiledGreenScanner(ForkJoinPool pool, List<GreenButtonDetector.Region> regions, int tileSize, int step) {
+        if (tileSize <= 0 || step <= 0) {
+            throw new IllegalArgumentException("分块大小和步长必须大于 0");
+        }
+        this.pool = pool;
+        this.regions = regions;
+        this.tileSize = tileSize;
+        this.step = step;
+    }
+
+    /**
+     * 扫描整帧，返回按优先级从高到低排列的候选区域，没有时返回空列表
+     */
+    public List<Candidate> scan(ArgbImage image) {
+        int cols = (image.getWidth() + tileSize - 1) / tileSize;
+        int rows = (image.getHeight() + tileSize - 1) / tileSize;
+        TileStats stats = new TileStats(cols * rows);
+
+        pool.invoke(new TileTask(image, stats, cols, 0, rows));
+        return mergeAndRank(image, stats, cols, rows);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 扫描一个方块，采样点按全局步长对齐，保证结果与分块方式无关
+     */
+    private void scanTile(ArgbImage image, TileStats stats, int tile, int tileX, int tileY) {
+        int width = image.getWidth();
+        int[] pixels = image.getPixels();
+
+        int startX = alignUp(tileX * tileSize);
+        int endX = Math.min(width, (tileX + 1) * tileSize);
+        int startY = alignUp(tileY * tileSize);
+        int endY = Math.min(image.getHeight(), (tileY + 1) * tileSize);
+
+        int bestScore = 0;
+        int bestX = -1;
+        int bestY = -1;
+        int count = 0;
+        long sumX = 0;
+        long sumY = 0;
+        long sumScore = 0;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+
+        for (int y = startY; y < endY; y += step) {
+            int rowOffset = y * width;
+            for (int x = startX; x < endX; x += step) {
+                int score = GreenButtonDetector.greenScore(pixels[rowOffset + x]);
+                if (score <= GreenButtonDetector.CENTER_THRESHOLD) continue;
+
+                count++;
+                sumX += (long) x * score;
+                sumY += (long) y * score;
+                sumScore += score;
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
+
+                if (score > bestScore && score > GreenButtonDetector.SEED_THRESHOLD) {
+                    bestScore = score;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+
+        stats.count[tile] = count;
+        if (count == 0) return;
+
+        stats.bestScore[tile] = bestScore;
+        stats.bestX[tile] = bestX;
+        stats.bestY[tile] = bestY;
+        stats.sumX[tile] = sumX;
+        stats.sumY[tile] = sumY;
+        stats.sumScore[tile] = sumScore;
+        stats.minX[tile] = minX;
+        stats.minY[tile] = minY;
+        stats.maxX[tile] = maxX;
+        stats.maxY[tile] = maxY;
+    }
+
+    private int alignUp(int value) {
+        return (value + step - 1) / step * step;
+    }
+
+    /**
+     * 合并相邻（含对角）的绿色块，只保留含有种子点的区域
+     */
+    private List<Candidate> mergeAndRank(ArgbImage image, TileStats stats, int cols, int rows) {
+        int tiles = cols * rows;
+        UnionFind unionFind = new UnionFind(tiles);
+        for (int tileY = 0; tileY < rows; tileY++) {
+            for (int tileX = 0; tileX < cols; tileX++) {
+                int tile = tileY * cols + tileX;
+                if (stats.count[tile] == 0) continue;
+
+                if (tileX + 1 < cols && stats.count[tile + 1] > 0) {
+                    unionFind.union(tile, tile + 1);
+                }
+                if (tileY + 1 < rows) {
+                    int below = tile + cols;
+                    if (stats.count[below] > 0) unionFind.union(tile, below);
+                    if (tileX > 0 && stats.count[below - 1] > 0) unionFind.union(tile, below - 1);
+                    if (tileX + 1 < cols && stats.count[below + 1] > 0) unionFind.union(tile, below + 1);
+                }
+            }
+        }
+
+        Candidate[] byRoot = new Candidate[tiles];
+        List<Candidate> candidates = new ArrayList<>();
+        for (int tile = 0; tile < tiles; tile++) {
+            if (stats.count[tile] == 0) continue;
+
+            int root = unionFind.find(tile);
+            Candidate candidate = byRoot[root];
+            if (candidate == null) {
+                candidate = new Candidate();
+                byRoot[root] = candidate;
+                candidates.add(candidate);
+            }
+            candidate.add(stats, tile);
+        }
+
+        List<Candidate> result = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.seedScore == 0) continue;
+            candidate.finish(image, regions);
+            result.add(candidate);
+        }
+        Collections.sort(result, (a, b) -> {
+            if (a.weight != b.weight) return Integer.compare(b.weight, a.weight);
+            if (a.seedScore != b.seedScore) return Integer.compare(b.seedScore, a.seedScore);
+            return Integer.compare(b.samples, a.samples);
+        });
+        return result;
+    }
+
+    /**
+     * 按块行区间递归拆分的扫描任务，各任务只写自己负责的块
+     */
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ArgbImage image;
+        private final TileStats stats;
+        private final int cols;
+        private final int fromRow;
+        private final int toRow;
+
+        TileTask(ArgbImage image, TileStats stats, int cols, int fromRow, int toRow) {
+            this.image = image;
+            this.stats = stats;
+            this.cols = cols;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= MIN_ROWS_PER_TASK) {
+                for (int tileY = fromRow; tileY < toRow; tileY++) {
+                    for (int tileX = 0; tileX < cols; tileX++) {
+                        scanTile(image, stats, tileY * cols + tileX, tileX, tileY);
+                    }
+                }
+                return;
+            }
+
+            int middle = (fromRow + toRow) >>> 1;
+            invokeAll(new TileTask(image, stats, cols, fromRow, middle),
+                new TileTask(image, stats, cols, middle, toRow));
+        }
+    }
+
+    /**
+     * 每个块的统计值，按块编号存放在基本类型数组里
+     */
+    private static final class TileStats {
+        final int[] count;
+        final int[] bestScore;
+        final int[] bestX;
+        final int[] bestY;
+        final long[] sumX;
+        final long[] sumY;
+        final long[] sumScore;
+        final int[] minX;
+        final int[] minY;
+        final int[] maxX;
+        final int[] maxY;
+
+        TileStats(int tiles) {
+            count = new int[tiles];
+            bestScore = new int[tiles];
+            bestX = new int[tiles];
+            bestY = new int[tiles];
+            sumX = new long[tiles];
+            sumY = new long[tiles];
+            sumScore = new long[tiles];
+            minX = new int[tiles];
+            minY = new int[tiles];
+            maxX = new int[tiles];
+            maxY = new int[tiles];
+        }
+    }
+
+    /**
+     * 候选区域
+     */
+    public static class Candidate {
+        /** 建议点击的位置（区域内绿色采样点的加权中心） */
+        public int x;
+        public int y;
+        /** 区域内得分最高的采样点 */
+        public int seedX;
+        public int seedY;
+        public int seedScore;
+        /** 绿色采样点包围盒 */
+        public int left = Integer.MAX_VALUE;
+        public int top = Integer.MAX_VALUE;
+        public int right = -1;
+        public int bottom = -1;
+        /** 绿色采样点数 */
+        public int samples;
+        /** 中心点所在扫描区域的最大权重和名称，不在任何区域时为 0 和 null */
+        public int weight;
+        public String regionName;
+
+        private long sumX;
+        private long sumY;
+        private long sumScore;
+
+        private void add(TileStats stats, int tile) {
+            samples += stats.count[tile];
+            sumX += stats.sumX[tile];
+            sumY += stats.sumY[tile];
+            sumScore += stats.sumScore[tile];
+            left = Math.min(left, stats.minX[tile]);
+            top = Math.min(top, stats.minY[tile]);
+            right = Math.max(right, stats.maxX[tile]);
+            bottom = Math.max(bottom, stats.maxY[tile]);
+            if (stats.bestScore[tile] > seedScore) {
+                seedScore = stats.bestScore[tile];
+                seedX = stats.bestX[tile];
+                seedY = stats.bestY[tile];
+            }
+        }
+
+        private void finish(ArgbImage image, List<GreenButtonDetector.Region> regions) {
+            x = (int) (sumX / sumScore);
+            y = (int) (sumY / sumScore);
+            for (GreenButtonDetector.Region region : regions) {
+                if (region.weight > weight && region.contains(x, y, image.getWidth(), image.getHeight())) {
+                    weight = region.weight;
+                    regionName = region.name;
+                }
+            }
+        }
+    }
+}
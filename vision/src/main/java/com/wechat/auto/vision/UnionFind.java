@@ -0,0 +1,75 @@
+package com.wechat.auto.vision;
+
+import java.util.Arrays;
+
+/**
+ * 基于数组的并查集（路径压缩 + 按大小合并）
+ * 可以先给定元素个数，也可以 clear 后用 add 逐个追加，数组按需扩容并在 clear 后复用
+ */
+final class UnionFind {
+
+    private int[] parent;
+    private int[] size;
+    private int count;
+
+    UnionFind(int count) {
+        parent = new int[Math.max(count, 1)];
+        size = new int[parent.length];
+        for (int i = 0; i < count; i++) {
+            add();
+        }
+    }
+
+    /**
+     * 清空所有元素，保留已分配的数组
+     */
+    void clear() {
+        count = 0;
+    }
+
+    /**
+     * 追加一个单独成集的元素，返回其编号
+     */
+    int add() {
+        if (count == parent.length) {
+            int capacity = parent.length * 2;
+            parent = Arrays.copyOf(parent, capacity);
+            size = Arrays.copyOf(size, capacity);
+        }
+        parent[count] = count;
+        size[count] = 1;
+        return count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int find(int node) {
+        int root = node;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // 路径压缩
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return;
+
+        if (size[rootA] < size[rootB]) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+}
@@ -0,0 +1,166 @@
+package com.wechat.auto.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class BlobDetectorTest {
+
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 800;
+
+    @Test
+    public void blankFrameHasNoBlobs() {
+        assertTrue(new BlobDetector().detect(TestFrames.blank(WIDTH, HEIGHT)).isEmpty());
+    }
+
+    @Test
+    public void circleIsButtonLikeButSquareAndBarAreNot() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 700, 50, TestFrames.WECHAT_GREEN);
+        TestFrames.fillRect(image, 20, 100, 119, 199, TestFrames.WECHAT_GREEN);
+        TestFrames.fillRect(image, 20, 400, 339, 439, TestFrames.WECHAT_GREEN);
+
+        BlobDetector detector = new BlobDetector(4, GreenButtonDetector.DEFAULT_REGIONS);
+        List<BlobDetector.Blob> blobs = detector.detect(image);
+        assertEquals(3, blobs.size());
+
+        List<BlobDetector.Blob> buttons = detector.findButtons(image);
+        assertEquals(1, buttons.size());
+        BlobDetector.Blob button = buttons.get(0);
+        assertEquals(180, button.centerX, 4);
+        assertEquals(700, button.centerY, 4);
+        assertTrue(button.circularity >= BlobDetector.MIN_BUTTON_CIRCULARITY);
+    }
+
+    @Test
+    public void diagonalNeighboursJoinOneBlob() {
+        ArgbImage image = TestFrames.blank(8, 8);
+        int[] pixels = image.getPixels();
+        for (int i = 0; i < 8; i++) {
+            pixels[i * 8 + i] = TestFrames.WECHAT_GREEN;
+        }
+
+        List<BlobDetector.Blob> blobs = new BlobDetector(1, GreenButtonDetector.DEFAULT_REGIONS).detect(image);
+
+        assertEquals(1, blobs.size());
+        assertEquals(8, blobs.get(0).area);
+        assertEquals(0, blobs.get(0).left);
+        assertEquals(7, blobs.get(0).bottom);
+    }
+
+    @Test
+    public void buttonsAreRankedByRegionWeight() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 200, 40, TestFrames.WECHAT_GREEN);
+        TestFrames.fillCircle(image, 300, 720, 40, TestFrames.WECHAT_GREEN);
+
+        List<BlobDetector.Blob> buttons = new BlobDetector(4, GreenButtonDetector.DEFAULT_REGIONS).findButtons(image);
+
+        assertEquals(2, buttons.size());
+        assertEquals(300, buttons.get(0).centerX, 4);
+        assertTrue(buttons.get(0).weight > buttons.get(1).weight);
+    }
+
+    @Test
+    public void randomMasksMatchFloodFill() {
+        Random random = new Random(7);
+        BlobDetector detector = new BlobDetector(1, GreenButtonDetector.DEFAULT_REGIONS);
+        for (int round = 0; round < 300; round++) {
+            int width = 1 + random.nextInt(24);
+            int height = 1 + random.nextInt(24);
+            double density = random.nextDouble();
+            ArgbImage image = TestFrames.blank(width, height);
+            int[] pixels = image.getPixels();
+            for (int i = 0; i < pixels.length; i++) {
+                if (random.nextDouble() < density) {
+                    pixels[i] = TestFrames.WECHAT_GREEN;
+                }
+            }
+
+            // 复用同一个检测器，同时检查缓冲区复用
+            assertEquals(describe(floodFill(image)), describe(detector.detect(image)));
+        }
+    }
+
+    /**
+     * 参考实现：逐点广度优先标记 8 连通区域
+     */
+    private static List<int[]> floodFill(ArgbImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean[] visited = new boolean[width * height];
+        List<int[]> blobs = new ArrayList<>();
+        for (int start = 0; start < visited.length; start++) {
+            if (visited[start] || !isGreen(image, start)) continue;
+
+            int cells = 0;
+            long sumX = 0;
+            long sumY = 0;
+            int minX = width;
+            int minY = height;
+            int maxX = -1;
+            int maxY = -1;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(start);
+            visited[start] = true;
+            while (!queue.isEmpty()) {
+                int cell = queue.poll();
+                int x = cell % width;
+                int y = cell / width;
+                cells++;
+                sumX += x;
+                sumY += y;
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x);
+                minY = Math.min(minY, y);
+                maxY = Math.max(maxY, y);
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                        int next = ny * width + nx;
+                        if (!visited[next] && isGreen(image, next)) {
+                            visited[next] = true;
+                            queue.add(next);
+                        }
+                    }
+                }
+            }
+            blobs.add(new int[]{cells, minX, minY, maxX, maxY, (int) (sumX / cells), (int) (sumY / cells)});
+        }
+        return blobs;
+    }
+
+    private static boolean isGreen(ArgbImage image, int index) {
+        return GreenButtonDetector.greenScore(image.getPixels()[index]) > GreenButtonDetector.CENTER_THRESHOLD;
+    }
+
+    private static List<String> describe(List<?> blobs) {
+        List<String> result = new ArrayList<>();
+        for (Object item : blobs) {
+            if (item instanceof int[]) {
+                int[] b = (int[]) item;
+                result.add(b[0] + ":" + b[1] + "," + b[2] + "-" + b[3] + "," + b[4] + "@" + b[5] + "," + b[6]);
+            } else {
+                BlobDetector.Blob b = (BlobDetector.Blob) item;
+                result.add(b.area + ":" + b.left + "," + b.top + "-" + b.right + "," + b.bottom
+                    + "@" + b.centerX + "," + b.centerY);
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveDownsampleIsRejected() {
+        new BlobDetector(0, GreenButtonDetector.DEFAULT_REGIONS);
+    }
+}
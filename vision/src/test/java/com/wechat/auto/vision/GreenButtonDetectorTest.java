@@ -0,0 +1,70 @@
+package com.wechat.auto.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GreenButtonDetectorTest {
+
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 800;
+
+    @Test
+    public void greenScoreOnlyRewardsClearGreen() {
+        assertTrue(GreenButtonDetector.greenScore(TestFrames.WECHAT_GREEN) > GreenButtonDetector.SEED_THRESHOLD);
+        assertEquals(0, GreenButtonDetector.greenScore(ArgbImage.argb(255, 255, 255, 255)));
+        assertEquals(0, GreenButtonDetector.greenScore(TestFrames.BACKGROUND));
+        assertEquals(0, GreenButtonDetector.greenScore(ArgbImage.argb(255, 230, 60, 60)));
+        // 偏暗的绿色不够明显
+        assertEquals(0, GreenButtonDetector.greenScore(ArgbImage.argb(255, 20, 100, 20)));
+    }
+
+    @Test
+    public void blankFrameHasNoDetection() {
+        assertNull(new GreenButtonDetector().detect(TestFrames.blank(WIDTH, HEIGHT)));
+    }
+
+    @Test
+    public void findsButtonCenterAtBottomMiddle() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 720, 18, TestFrames.WECHAT_GREEN);
+
+        GreenButtonDetector.Detection detection = new GreenButtonDetector().detect(image);
+
+        assertNotNull(detection);
+        assertEquals("底部中间", detection.regionName);
+        assertEquals(180, detection.x, 3);
+        assertEquals(720, detection.y, 3);
+        assertTrue(detection.centerSamples > 0);
+    }
+
+    @Test
+    public void higherPriorityRegionWins() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 200, 18, TestFrames.WECHAT_GREEN);
+        TestFrames.fillCircle(image, 300, 720, 18, TestFrames.WECHAT_GREEN);
+
+        GreenButtonDetector.Detection detection = new GreenButtonDetector().detect(image);
+
+        assertNotNull(detection);
+        assertEquals("右下角", detection.regionName);
+        assertEquals(300, detection.x, 3);
+        assertEquals(720, detection.y, 3);
+    }
+
+    @Test
+    public void regionContainsUsesRelativeBounds() {
+        GreenButtonDetector.Region region = new GreenButtonDetector.Region("测试", 0.5, 1.0, 0.5, 1.0, 4, 1);
+        assertTrue(region.contains(180, 400, WIDTH, HEIGHT));
+        assertTrue(!region.contains(179, 400, WIDTH, HEIGHT));
+        assertTrue(!region.contains(360, 799, WIDTH, HEIGHT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void imageRejectsShortPixelArray() {
+        new ArgbImage(new int[10], 4, 4);
+    }
+}
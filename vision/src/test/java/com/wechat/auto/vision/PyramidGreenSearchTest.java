@@ -0,0 +1,105 @@
+package com.wechat.auto.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PyramidGreenSearchTest {
+
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 800;
+
+    @Test
+    public void blankFrameOnlySamplesCoarseGrid() {
+        PyramidGreenSearch.Result result = new PyramidGreenSearch().search(TestFrames.blank(WIDTH, HEIGHT));
+
+        assertNull(result.best());
+        assertEquals((WIDTH / 8) * (HEIGHT / 8), result.pixelsSampled);
+    }
+
+    @Test
+    public void refinementSamplesOnlyAroundCandidate() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 700, 50, TestFrames.WECHAT_GREEN);
+
+        PyramidGreenSearch.Result result = new PyramidGreenSearch().search(image);
+
+        assertEquals(1, result.buttons.size());
+        long coarse = (WIDTH / 8) * (HEIGHT / 8);
+        assertTrue(result.pixelsSampled > coarse);
+        // 细化窗口只比按钮略大，远少于整帧像素
+        assertTrue(result.pixelsSampled < coarse + 2 * 120 * 120);
+    }
+
+    @Test
+    public void coarseToFineMatchesFullResolution() {
+        Random random = new Random(11);
+        BlobDetector fullResolution = new BlobDetector(1, GreenButtonDetector.DEFAULT_REGIONS);
+        PyramidGreenSearch search = new PyramidGreenSearch();
+        for (int round = 0; round < 20; round++) {
+            ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+            // 每个圆放在各自的格子里，互不相连
+            TestFrames.fillCircle(image, 90 + random.nextInt(20) - 10, 150 + random.nextInt(20) - 10,
+                30 + random.nextInt(30), TestFrames.WECHAT_GREEN);
+            TestFrames.fillCircle(image, 270 + random.nextInt(20) - 10, 450 + random.nextInt(20) - 10,
+                30 + random.nextInt(30), TestFrames.WECHAT_GREEN);
+            TestFrames.fillCircle(image, 180 + random.nextInt(20) - 10, 700 + random.nextInt(20) - 10,
+                30 + random.nextInt(30), TestFrames.WECHAT_GREEN);
+
+            List<BlobDetector.Blob> expected = fullResolution.findButtons(image);
+            List<BlobDetector.Blob> actual = search.search(image).buttons;
+
+            assertEquals(3, expected.size());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).centerX, actual.get(i).centerX, 1);
+                assertEquals(expected.get(i).centerY, actual.get(i).centerY, 1);
+                assertEquals(expected.get(i).left, actual.get(i).left);
+                assertEquals(expected.get(i).top, actual.get(i).top);
+                assertEquals(expected.get(i).right, actual.get(i).right);
+                assertEquals(expected.get(i).bottom, actual.get(i).bottom);
+                assertEquals(expected.get(i).weight, actual.get(i).weight);
+            }
+        }
+    }
+
+    @Test
+    public void buttonsAreRankedByRegionWeight() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 200, 40, TestFrames.WECHAT_GREEN);
+        TestFrames.fillCircle(image, 300, 720, 40, TestFrames.WECHAT_GREEN);
+
+        PyramidGreenSearch.Result result = new PyramidGreenSearch().search(image);
+
+        assertEquals(2, result.buttons.size());
+        assertEquals(300, result.best().centerX, 1);
+        assertEquals(720, result.best().centerY, 1);
+        assertTrue(result.buttons.get(0).weight > result.buttons.get(1).weight);
+    }
+
+    @Test
+    public void nonCircularBlobIsNotAButton() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillRect(image, 20, 400, 339, 439, TestFrames.WECHAT_GREEN);
+
+        assertNull(new PyramidGreenSearch().search(image).best());
+    }
+
+    @Test
+    public void invalidScalesAreRejected() {
+        int[][] invalid = {{}, {8, 8}, {2, 4}, {8, 0}, {-1}};
+        for (int[] scales : invalid) {
+            try {
+                new PyramidGreenSearch(scales, GreenButtonDetector.DEFAULT_REGIONS);
+                throw new AssertionError("应拒绝缩小倍数 " + Arrays.toString(scales));
+            } catch (IllegalArgumentException expected) {
+                // 预期的异常
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.wechat.auto.vision;
+
+import java.util.Arrays;
+
+/**
+ * 测试用的合成截图
+ */
+final class TestFrames {
+
+    static final int WECHAT_GREEN = ArgbImage.argb(255, 7, 193, 96);
+    static final int BACKGROUND = ArgbImage.argb(255, 40, 40, 40);
+
+    private TestFrames() {
+    }
+
+    static ArgbImage blank(int width, int height) {
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, BACKGROUND);
+        return new ArgbImage(pixels, width, height);
+    }
+
+    static void fillCircle(ArgbImage image, int centerX, int centerY, int radius, int color) {
+        int[] pixels = image.getPixels();
+        int width = image.getWidth();
+        for (int y = Math.max(0, centerY - radius); y <= Math.min(image.getHeight() - 1, centerY + radius); y++) {
+            for (int x = Math.max(0, centerX - radius); x <= Math.min(width - 1, centerX + radius); x++) {
+                int dx = x - centerX;
+                int dy = y - centerY;
+                if (dx * dx + dy * dy <= radius * radius) {
+                    pixels[y * width + x] = color;
+                }
+            }
+        }
+    }
+
+    static void fillRect(ArgbImage image, int left, int top, int right, int bottom, int color) {
+        int[] pixels = image.getPixels();
+        int width = image.getWidth();
+        for (int y = top; y <= bottom; y++) {
+            Arrays.fill(pixels, y * width + left, y * width + right + 1, color);
+        }
+    }
+}
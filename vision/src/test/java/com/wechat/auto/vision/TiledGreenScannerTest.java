@@ -0,0 +1,117 @@
+package com.wechat.auto.vision;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Test;
+
+public class TiledGreenScannerTest {
+
+    private static final int WIDTH = 360;
+    private static final int HEIGHT = 800;
+    private static final int STEP = 4;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private TiledGreenScanner scanner(int tileSize) {
+        return new TiledGreenScanner(pool, GreenButtonDetector.DEFAULT_REGIONS, tileSize, STEP);
+    }
+
+    @Test
+    public void blankFrameHasNoCandidates() {
+        assertTrue(scanner(64).scan(TestFrames.blank(WIDTH, HEIGHT)).isEmpty());
+    }
+
+    @Test
+    public void blobAcrossTileSeamsIsOneCandidate() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        // 圆心正好落在 64 像素分块的交点上，圆跨四个块
+        TestFrames.fillCircle(image, 192, 704, 30, TestFrames.WECHAT_GREEN);
+
+        List<TiledGreenScanner.Candidate> candidates = scanner(64).scan(image);
+
+        assertEquals(1, candidates.size());
+        TiledGreenScanner.Candidate candidate = candidates.get(0);
+        assertEquals(192, candidate.x, 2);
+        assertEquals(704, candidate.y, 2);
+        assertTrue(candidate.left < 192 && candidate.right > 192);
+        assertTrue(candidate.top < 704 && candidate.bottom > 704);
+        assertEquals(countSamples(image), candidate.samples);
+    }
+
+    @Test
+    public void singleBlobDoesNotDependOnTileSize() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 150, 620, 45, TestFrames.WECHAT_GREEN);
+
+        List<TiledGreenScanner.Candidate> expected = scanner(1024).scan(image);
+        assertEquals(1, expected.size());
+        for (int tileSize : new int[]{16, 30, 64, 128}) {
+            List<TiledGreenScanner.Candidate> actual = scanner(tileSize).scan(image);
+            assertEquals(1, actual.size());
+            assertSameCandidate(expected.get(0), actual.get(0));
+        }
+    }
+
+    @Test
+    public void candidatesAreRankedByRegionWeight() {
+        ArgbImage image = TestFrames.blank(WIDTH, HEIGHT);
+        TestFrames.fillCircle(image, 180, 200, 30, TestFrames.WECHAT_GREEN);
+        TestFrames.fillCircle(image, 320, 740, 30, TestFrames.WECHAT_GREEN);
+
+        List<TiledGreenScanner.Candidate> candidates = scanner(64).scan(image);
+
+        assertEquals(2, candidates.size());
+        assertEquals("右下角", candidates.get(0).regionName);
+        assertEquals(320, candidates.get(0).x, 2);
+        assertEquals("全屏", candidates.get(1).regionName);
+        assertTrue(candidates.get(0).weight > candidates.get(1).weight);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveTileSizeIsRejected() {
+        scanner(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveStepIsRejected() {
+        new TiledGreenScanner(pool, GreenButtonDetector.DEFAULT_REGIONS, 64, 0);
+    }
+
+    /**
+     * 整帧按同一步长采样时得分达到阈值的点数
+     */
+    private static int countSamples(ArgbImage image) {
+        int count = 0;
+        int[] pixels = image.getPixels();
+        for (int y = 0; y < image.getHeight(); y += STEP) {
+            for (int x = 0; x < image.getWidth(); x += STEP) {
+                if (GreenButtonDetector.greenScore(pixels[y * image.getWidth() + x])
+                        > GreenButtonDetector.CENTER_THRESHOLD) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void assertSameCandidate(TiledGreenScanner.Candidate expected,
+                                            TiledGreenScanner.Candidate actual) {
+        assertEquals(expected.x, actual.x);
+        assertEquals(expected.y, actual.y);
+        assertEquals(expected.samples, actual.samples);
+        assertEquals(expected.left, actual.left);
+        assertEquals(expected.top, actual.top);
+        assertEquals(expected.right, actual.right);
+        assertEquals(expected.bottom, actual.bottom);
+        assertEquals(expected.seedScore, actual.seedScore);
+    }
+}